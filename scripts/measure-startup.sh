@@ -0,0 +1,61 @@
+#!/usr/bin/env bash
+# Measures time-to-ready and resident memory of the Weather API for one build variant.
+#
+#   scripts/measure-startup.sh jar      # mvn package
+#   scripts/measure-startup.sh aot      # mvn -Paot package
+#   scripts/measure-startup.sh cds      # mvn -Pcds package (or -Paot,cds, then also set AOT=true)
+#   scripts/measure-startup.sh native   # mvn -Pnative package
+#
+# Environment: RUNS (default 5), PORT (default 8000), PROFILES (default prod), AOT (cds only).
+# "ready" is the first successful authenticated GET /weather, measured from process launch.
+set -euo pipefail
+
+MODE=${1:-jar}
+RUNS=${RUNS:-5}
+PORT=${PORT:-8000}
+PROFILES=${PROFILES:-prod}
+AOT=${AOT:-false}
+JAR=target/WeatherApi-1.0-SNAPSHOT.jar
+APP_ARGS=(--server.port="$PORT" --spring.profiles.active="$PROFILES")
+
+case "$MODE" in
+  jar)    CMD=(java -jar "$JAR") ;;
+  aot)    CMD=(java -Dspring.aot.enabled=true -jar "$JAR") ;;
+  cds)    CMD=(java -XX:SharedArchiveFile=target/cds/application.jsa -Dspring.aot.enabled="$AOT"
+                -cp "target/cds/WeatherApi-1.0-SNAPSHOT-cds.jar:target/cds/lib/*" com.klm.weather.Application) ;;
+  native) CMD=(target/weather-api) ;;
+  *) echo "Unknown mode $MODE (jar|aot|cds|native)" >&2; exit 1 ;;
+esac
+
+now_ms() { date +%s%3N; }
+
+rss_kb() {
+  if [[ -r /proc/$1/status ]]; then
+    awk '/VmRSS/ {print $2}' "/proc/$1/status"
+  else
+    ps -o rss= -p "$1" | tr -d ' '
+  fi
+}
+
+echo "mode=$MODE runs=$RUNS"
+printf "%-5s %12s %14s %10s\n" run ready_ms boot_reported rss_mb
+for ((run = 1; run <= RUNS; run++)); do
+  log=$(mktemp)
+  start=$(now_ms)
+  "${CMD[@]}" "${APP_ARGS[@]}" > "$log" 2>&1 &
+  pid=$!
+  until curl -sf -o /dev/null -u user:password "http://localhost:$PORT/weather"; do
+    if ! kill -0 "$pid" 2>/dev/null; then
+      echo "Application exited, see $log" >&2
+      exit 1
+    fi
+    sleep 0.05
+  done
+  ready=$(($(now_ms) - start))
+  rss=$(rss_kb "$pid")
+  reported=$(grep -o 'Started Application in [0-9.]* seconds' "$log" | awk '{print $4 "s"}' || true)
+  printf "%-5s %12s %14s %10s\n" "$run" "$ready" "${reported:-n/a}" "$((rss / 1024))"
+  kill "$pid"
+  wait "$pid" 2>/dev/null || true
+  rm -f "$log"
+done
@@ -0,0 +1,38 @@
+#!/usr/bin/env bash
+# Runs a local Weather API cluster: NODES processes on ports BASE_PORT, BASE_PORT+1, ...
+# Each node keeps its shard in its own in-memory database. Stop with Ctrl+C.
+#
+#   mvn clean package -Dmaven.test.skip=true
+#   NODES=3 scripts/run-cluster.sh
+#   curl -u admin:adminpass -H 'Content-Type: application/json' -d @record.json localhost:8001/weather
+#   curl -u user:password 'localhost:8002/weather?sort=date'
+set -euo pipefail
+
+NODES=${NODES:-3}
+BASE_PORT=${BASE_PORT:-8001}
+SECRET=${SECRET:-local-cluster-secret}
+JAR=${JAR:-target/WeatherApi-1.0-SNAPSHOT.jar}
+
+node_urls=()
+for ((i = 0; i < NODES; i++)); do
+  node_urls+=("http://localhost:$((BASE_PORT + i))")
+done
+nodes=$(IFS=,; echo "${node_urls[*]}")
+
+pids=()
+trap 'kill "${pids[@]}" 2>/dev/null || true' EXIT INT TERM
+
+for ((i = 0; i < NODES; i++)); do
+  java -jar "$JAR" \
+    --server.port=$((BASE_PORT + i)) \
+    --spring.datasource.url="jdbc:h2:mem:weather-node-$i" \
+    --app.cluster.enabled=true \
+    --app.cluster.nodes="$nodes" \
+    --app.cluster.node-index=$i \
+    --app.cluster.secret="$SECRET" \
+    > "target/cluster-node-$i.log" 2>&1 &
+  pids+=($!)
+  echo "Started node $i on port $((BASE_PORT + i)) (pid ${pids[-1]}, log target/cluster-node-$i.log)"
+done
+
+wait
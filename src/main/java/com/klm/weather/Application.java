@@ -2,10 +2,12 @@ package com.klm.weather;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.ImportRuntimeHints;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
 
 @SpringBootApplication
 @EnableJpaRepositories
+@ImportRuntimeHints(WeatherRuntimeHints.class)
 public class Application {
     public static void main(String[] args) {
         SpringApplication.run(Application.class, args);
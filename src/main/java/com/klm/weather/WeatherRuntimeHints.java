@@ -0,0 +1,33 @@
+package com.klm.weather;
+
+import com.klm.weather.model.Location;
+import com.klm.weather.model.RankedWeather;
+import com.klm.weather.model.Weather;
+import com.klm.weather.model.WeatherDTO;
+import com.klm.weather.model.WeatherLookup;
+import com.klm.weather.model.WeatherMultiGetRequest;
+import com.klm.weather.model.WeatherRow;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+
+/**
+ * Reflection hints for native images that AOT processing cannot infer on its own: Jackson binds
+ * the DTO and entity types and the paged responses, and Hibernate calls the {@link WeatherRow}
+ * constructors named in the repository's constructor queries.
+ */
+public class WeatherRuntimeHints implements RuntimeHintsRegistrar {
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        for (Class<?> type : new Class<?>[]{Weather.class, WeatherDTO.class, Location.class, WeatherRow.class,
+                WeatherLookup.class, WeatherMultiGetRequest.class, RankedWeather.class, PageImpl.class, PageRequest.class}) {
+            hints.reflection().registerType(type,
+                    MemberCategory.INVOKE_DECLARED_CONSTRUCTORS,
+                    MemberCategory.INVOKE_PUBLIC_METHODS,
+                    MemberCategory.DECLARED_FIELDS);
+        }
+    }
+}
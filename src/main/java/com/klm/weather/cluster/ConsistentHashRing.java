@@ -0,0 +1,59 @@
+package com.klm.weather.cluster;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Consistent hash ring mapping partition keys (lower-cased city names) to node indexes.
+ * <p>
+ * Every node is placed on the ring many times ({@code virtualNodes}) to even out the load, and
+ * adding or removing a node only moves the keys adjacent to its points. The ring is derived from
+ * the node count alone, so all nodes configured with the same count agree on every owner.
+ */
+public class ConsistentHashRing {
+
+    private final NavigableMap<Long, Integer> ring = new TreeMap<>();
+    private final int nodeCount;
+
+    public ConsistentHashRing(int nodeCount, int virtualNodes) {
+        if (nodeCount < 1 || virtualNodes < 1) {
+            throw new IllegalArgumentException("Node count and virtual nodes must be positive");
+        }
+        this.nodeCount = nodeCount;
+        for (int node = 0; node < nodeCount; node++) {
+            for (int replica = 0; replica < virtualNodes; replica++) {
+                ring.put(hash("node-" + node + "#" + replica), node);
+            }
+        }
+    }
+
+    /**
+     * @return the index of the node owning the given key
+     */
+    public int ownerOf(String key) {
+        Map.Entry<Long, Integer> entry = ring.ceilingEntry(hash(key));
+        return entry != null ? entry.getValue() : ring.firstEntry().getValue();
+    }
+
+    public int nodeCount() {
+        return nodeCount;
+    }
+
+    // First 8 bytes of MD5: stable across JVMs and well spread, unlike String.hashCode
+    private static long hash(String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("MD5").digest(key.getBytes(StandardCharsets.UTF_8));
+            long hash = 0;
+            for (int i = 0; i < 8; i++) {
+                hash = (hash << 8) | (digest[i] & 0xff);
+            }
+            return hash;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("MD5 not available", e);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.klm.weather.cluster;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * K-way merge of per-shard result lists that are each already sorted by the same comparator.
+ */
+public final class ShardedPageMerger {
+
+    private ShardedPageMerger() {
+    }
+
+    /**
+     * Merges the shard lists and returns the {@code limit} elements following the first {@code skip}.
+     * Only one head element per shard is held in the heap at any time.
+     */
+    public static <T> List<T> merge(List<List<T>> shards, Comparator<? super T> comparator, long skip, int limit) {
+        PriorityQueue<Head<T>> heads = new PriorityQueue<>(Math.max(1, shards.size()),
+                (a, b) -> comparator.compare(a.value, b.value));
+        for (List<T> shard : shards) {
+            Iterator<T> iterator = shard.iterator();
+            if (iterator.hasNext()) {
+                heads.add(new Head<>(iterator.next(), iterator));
+            }
+        }
+        List<T> page = new ArrayList<>(limit);
+        long position = 0;
+        while (!heads.isEmpty() && page.size() < limit) {
+            Head<T> head = heads.poll();
+            if (position++ >= skip) {
+                page.add(head.value);
+            }
+            if (head.rest.hasNext()) {
+                heads.add(new Head<>(head.rest.next(), head.rest));
+            }
+        }
+        return page;
+    }
+
+    private static final class Head<T> {
+        final T value;
+        final Iterator<T> rest;
+
+        Head(T value, Iterator<T> rest) {
+            this.value = value;
+            this.rest = rest;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.klm.weather.cluster;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.web.client.RestClient;
+
+@Configuration
+@ConditionalOnProperty(name = "app.cluster.enabled", havingValue = "true")
+public class WeatherClusterConfig {
+
+    // Client for requests between nodes, bounded so a hung shard fails the request instead of blocking it
+    @Bean
+    public RestClient clusterRestClient(RestClient.Builder restClientBuilder,
+                                        @Value("${app.cluster.timeout-ms:2000}") int timeoutMs) {
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(timeoutMs);
+        requestFactory.setReadTimeout(timeoutMs);
+        return restClientBuilder.requestFactory(requestFactory).build();
+    }
+}
@@ -0,0 +1,590 @@
+package com.klm.weather.cluster;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.klm.weather.model.RankedWeather;
+import com.klm.weather.model.WeatherDTO;
+import com.klm.weather.model.WeatherLookup;
+import com.klm.weather.model.WeatherMultiGetRequest;
+import com.klm.weather.service.TemperatureMetric;
+import com.klm.weather.service.WeatherCreatedEvent;
+import com.klm.weather.service.WeatherProjection;
+import com.klm.weather.service.WeatherService;
+import com.klm.weather.service.WeatherStreamService;
+import com.klm.weather.service.WeatherTopService;
+import jakarta.annotation.PreDestroy;
+import jakarta.servlet.http.HttpServletRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestClientResponseException;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cluster mode: weather records are partitioned across nodes by consistent hashing on the
+ * lower-cased city name, each node keeping its shard in its own database.
+ * <p>
+ * Any node accepts requests and acts as coordinator: writes are forwarded to the owning node and
+ * list reads fan out to the relevant shards and are k-way merged. Requests between nodes carry
+ * {@link #SHARD_LOCAL_HEADER} with the shared secret and are served from the local shard only.
+ * <p>
+ * Ids seen by clients are global: the local id shifted left by {@link #SHARD_BITS} with the node
+ * index in the low bits. They keep the per-shard id order, so {@code date,id} ordering and paging
+ * behave as on a single node, and the owning shard of an id can be computed without a lookup.
+ * The encoding does not depend on the node count, so appending nodes keeps existing ids valid;
+ * removing or reordering nodes changes what the low bits point to and needs an id migration.
+ * Local ids too large to encode fail the request instead of wrapping around.
+ * <p>
+ * A shard that sheds load (429 or 503) or cannot be reached makes the whole request fail with 503
+ * and a {@code Retry-After}, the same answer an overloaded single node gives; other shard
+ * failures are reported as 502.
+ * <p>
+ * Stream subscribers may be connected to any node, so the node that stores a record relays it,
+ * with its global id, to every other node's stream. Relaying is best effort, like the stream itself.
+ */
+@Service
+@ConditionalOnProperty(name = "app.cluster.enabled", havingValue = "true")
+public class WeatherClusterService {
+
+    public static final String SHARD_LOCAL_HEADER = "X-Weather-Shard-Local";
+    // Low bits of a global id holding the node index, so at most 32 nodes
+    public static final int SHARD_BITS = 5;
+    private static final int SHARD_MASK = (1 << SHARD_BITS) - 1;
+
+    private static final Logger logger = LoggerFactory.getLogger(WeatherClusterService.class);
+
+    private final WeatherService weatherService;
+    private final WeatherTopService weatherTopService;
+    private final WeatherStreamService weatherStreamService;
+    private final ObjectMapper objectMapper;
+    private final RestClient restClient;
+    private final ConsistentHashRing ring;
+    private final List<String> nodes;
+    private final int nodeIndex;
+    private final byte[] secret;
+    private final int maxMergeWindow;
+    private final int retryAfterSeconds;
+    private final ExecutorService fanout;
+
+    public WeatherClusterService(WeatherService weatherService,
+                                 WeatherTopService weatherTopService,
+                                 WeatherStreamService weatherStreamService,
+                                 ObjectMapper objectMapper,
+                                 RestClient clusterRestClient,
+                                 @Value("${app.cluster.nodes}") List<String> nodes,
+                                 @Value("${app.cluster.node-index}") int nodeIndex,
+                                 @Value("${app.cluster.secret}") String secret,
+                                 @Value("${app.cluster.virtual-nodes:128}") int virtualNodes,
+                                 @Value("${app.cluster.max-merge-window:10000}") int maxMergeWindow,
+                                 @Value("${app.cluster.fanout-threads:8}") int fanoutThreads,
+                                 @Value("${app.limits.retry-after-seconds:1}") int retryAfterSeconds) {
+        if (nodeIndex < 0 || nodeIndex >= nodes.size()) {
+            throw new IllegalArgumentException("app.cluster.node-index must point into app.cluster.nodes");
+        }
+        if (nodes.size() > SHARD_MASK + 1) {
+            throw new IllegalArgumentException("app.cluster.nodes supports at most " + (SHARD_MASK + 1) + " nodes");
+        }
+        this.weatherService = weatherService;
+        this.weatherTopService = weatherTopService;
+        this.weatherStreamService = weatherStreamService;
+        this.objectMapper = objectMapper;
+        this.restClient = clusterRestClient;
+        this.ring = new ConsistentHashRing(nodes.size(), virtualNodes);
+        this.nodes = List.copyOf(nodes);
+        this.nodeIndex = nodeIndex;
+        this.secret = secret.getBytes(StandardCharsets.UTF_8);
+        this.maxMergeWindow = maxMergeWindow;
+        this.retryAfterSeconds = retryAfterSeconds;
+        AtomicLong threads = new AtomicLong();
+        this.fanout = Executors.newFixedThreadPool(fanoutThreads, runnable -> {
+            Thread thread = new Thread(runnable, "weather-cluster-fanout-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * @return whether the current request was sent by another node and must only touch the local shard
+     */
+    public boolean isShardLocalRequest() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        return attributes instanceof ServletRequestAttributes servletAttributes
+                && isShardLocalRequest(servletAttributes.getRequest());
+    }
+
+    /**
+     * @return whether the given request carries the shard header with the cluster's shared secret
+     */
+    public boolean isShardLocalRequest(HttpServletRequest request) {
+        String header = request.getHeader(SHARD_LOCAL_HEADER);
+        return header != null && MessageDigest.isEqual(header.getBytes(StandardCharsets.UTF_8), secret);
+    }
+
+    public WeatherDTO createWeatherRecord(WeatherDTO weather) {
+        int owner = ring.ownerOf(weather.getCity().toLowerCase());
+        WeatherDTO created;
+        if (owner == nodeIndex) {
+            created = weatherService.createWeatherRecord(weather);
+        } else {
+            String authorization = currentAuthorization();
+            created = call(owner, () -> restClient.post()
+                    .uri(nodes.get(owner) + "/weather")
+                    .headers(headers -> shardHeaders(headers, authorization))
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(weather)
+                    .retrieve()
+                    .body(WeatherDTO.class));
+        }
+        return withId(created, toGlobalId(created.getId(), owner));
+    }
+
+    // Runs on the owning node after the insert commits, on the thread of the (possibly forwarded) write
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onWeatherCreated(WeatherCreatedEvent event) {
+        WeatherDTO weather = withId(event.getWeather(), toGlobalId(event.getWeather().getId(), nodeIndex));
+        weatherStreamService.publish(weather);
+        String authorization = currentAuthorization();
+        for (int node = 0; node < nodes.size(); node++) {
+            if (node != nodeIndex) {
+                int target = node;
+                fanout.execute(() -> relay(target, weather, authorization));
+            }
+        }
+    }
+
+    /**
+     * Streams a record relayed by the node that stored it; its id is already global.
+     */
+    public void onWeatherRelayed(WeatherDTO weather) {
+        weatherStreamService.publish(asRow(weather));
+    }
+
+    private void relay(int node, WeatherDTO weather, String authorization) {
+        try {
+            call(node, () -> restClient.post()
+                    .uri(nodes.get(node) + "/weather/_events")
+                    .headers(headers -> shardHeaders(headers, authorization))
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(weather)
+                    .retrieve()
+                    .toBodilessEntity());
+        } catch (ResponseStatusException e) {
+            // The record is stored; only subscribers of that node miss it
+            logger.warn("Could not relay weather record {} to node {}: {}", weather.getId(), node, e.getReason());
+        }
+    }
+
+    public Page<WeatherDTO> getAllWeatherRecords(String date, List<String> cities, List<String> states, String sortBy,
+                                                 String sortDirection, int page, int size, String fields, String hours) {
+        WeatherProjection requested = WeatherProjection.of(fields, hours);
+        long window = (long) (page + 1) * size;
+        if (window > maxMergeWindow) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Page too deep for cluster mode; (page + 1) * size must not exceed " + maxMergeWindow);
+        }
+        // Shards need id and date to merge, even when the client did not ask for them
+        String shardFields = fields != null ? fields + ",id,date" : null;
+        String authorization = currentAuthorization();
+
+        List<CompletableFuture<ShardPage>> futures = new ArrayList<>();
+        boolean includesLocalShard = false;
+        for (int shard : shardsFor(cities)) {
+            if (shard == nodeIndex) {
+                includesLocalShard = true;
+                continue;
+            }
+            futures.add(CompletableFuture.supplyAsync(() ->
+                    fetchShardPage(shard, date, cities, states, sortBy, sortDirection, (int) window, shardFields, hours, authorization), fanout));
+        }
+        // The local shard is read on the request thread, which carries the security context
+        if (includesLocalShard) {
+            futures.add(CompletableFuture.completedFuture(
+                    fetchShardPage(nodeIndex, date, cities, states, sortBy, sortDirection, (int) window, shardFields, hours, authorization)));
+        }
+        List<List<WeatherDTO>> shardContents = new ArrayList<>();
+        long total = 0;
+        for (CompletableFuture<ShardPage> future : futures) {
+            ShardPage shardPage = join(future);
+            shardContents.add(shardPage.content);
+            total += shardPage.totalElements;
+        }
+
+        boolean descending = "desc".equalsIgnoreCase(sortDirection);
+        List<WeatherDTO> content = ShardedPageMerger.merge(shardContents, comparator(sortBy, descending), (long) page * size, size);
+        content.forEach(dto -> {
+            if (!requested.includes("id")) {
+                dto.setId(null);
+            }
+            if (!requested.includes("date")) {
+                dto.setDate(null);
+            }
+        });
+        return new PageImpl<>(content, PageRequest.of(page, size, sort(sortBy, descending)), total);
+    }
+
+    public Optional<WeatherDTO> getWeatherById(Integer id, String fields, String hours) {
+        WeatherProjection.of(fields, hours);  // Validate before going remote
+        int shard = shardOf(id);
+        if (shard < 0) {
+            return Optional.empty();
+        }
+        int localId = id >>> SHARD_BITS;
+        if (shard == nodeIndex) {
+            return weatherService.getWeatherById(localId, WeatherProjection.of(fields, hours))
+                    .map(dto -> dto.getId() != null ? withId(dto, id) : dto);
+        }
+        String authorization = currentAuthorization();
+        URI uri = UriComponentsBuilder.fromHttpUrl(nodes.get(shard) + "/weather/" + localId)
+                .queryParamIfPresent("fields", Optional.ofNullable(fields))
+                .queryParamIfPresent("hours", Optional.ofNullable(hours))
+                .build().toUri();
+        try {
+            WeatherDTO dto = call(shard, () -> restClient.get()
+                    .uri(uri)
+                    .headers(headers -> shardHeaders(headers, authorization))
+                    .retrieve()
+                    .body(WeatherDTO.class));
+            dto = asRow(dto);
+            return Optional.of(dto.getId() != null ? withId(dto, id) : dto);
+        } catch (ResponseStatusException e) {
+            if (e.getStatusCode().value() == HttpStatus.NOT_FOUND.value()) {
+                return Optional.empty();
+            }
+            throw e;
+        }
+    }
+
+    public List<WeatherLookup> getWeatherByIds(List<Integer> ids, String fields, String hours) {
+        WeatherProjection projection = WeatherProjection.of(fields, hours);  // Validate before going remote
+        Map<Integer, List<Integer>> localIdsByShard = new TreeMap<>();
+        for (Integer id : ids) {
+            int shard = shardOf(id);
+            if (shard >= 0) {
+                localIdsByShard.computeIfAbsent(shard, s -> new ArrayList<>()).add(id >>> SHARD_BITS);
+            }
+        }
+        String authorization = currentAuthorization();
+        Map<Integer, CompletableFuture<List<WeatherLookup>>> futures = new HashMap<>();
+        localIdsByShard.forEach((shard, localIds) -> {
+            if (shard != nodeIndex) {
+                futures.put(shard, CompletableFuture.supplyAsync(() -> fetchShardLookups(shard, localIds, fields, hours, authorization), fanout));
+            }
+        });
+        // The local shard is read on the request thread, which carries the security context
+        if (localIdsByShard.containsKey(nodeIndex)) {
+            futures.put(nodeIndex, CompletableFuture.completedFuture(
+                    weatherService.getWeatherByIds(localIdsByShard.get(nodeIndex), projection)));
+        }
+        Map<Integer, WeatherDTO> found = new HashMap<>();
+        futures.forEach((shard, future) -> {
+            for (WeatherLookup lookup : join(future)) {
+                Integer id = toGlobalId(lookup.getId(), shard);
+                WeatherDTO weather = lookup.getWeather();
+                if (weather != null) {
+                    found.put(id, weather.getId() != null ? withId(asRow(weather), id) : asRow(weather));
+                }
+            }
+        });
+        List<WeatherLookup> results = new ArrayList<>(ids.size());
+        for (Integer id : ids) {
+            results.add(new WeatherLookup(id, found.get(id)));
+        }
+        return results;
+    }
+
+    public List<RankedWeather> getTopWeather(TemperatureMetric metric, int n, boolean descending, String date, String from,
+                                             String to, List<String> cities, List<String> states, String fields, String hours) {
+        WeatherProjection requested = WeatherProjection.of(fields, hours);
+        // Shards need the id to break ties the same way a single node does
+        String shardFields = fields != null ? fields + ",id" : null;
+        String authorization = currentAuthorization();
+        Map<Integer, CompletableFuture<List<RankedWeather>>> futures = new HashMap<>();
+        for (int shard : shardsFor(cities)) {
+            if (shard == nodeIndex) {
+                continue;
+            }
+            URI uri = UriComponentsBuilder.fromHttpUrl(nodes.get(shard) + "/weather/top")
+                    .queryParam("metric", metric.name().toLowerCase())
+                    .queryParam("n", n)
+                    .queryParam("order", descending ? "desc" : "asc")
+                    .queryParamIfPresent("date", Optional.ofNullable(date))
+                    .queryParamIfPresent("from", Optional.ofNullable(from))
+                    .queryParamIfPresent("to", Optional.ofNullable(to))
+                    .queryParamIfPresent("city", cities.isEmpty() ? Optional.empty() : Optional.of(String.join(",", cities)))
+                    .queryParamIfPresent("state", states.isEmpty() ? Optional.empty() : Optional.of(String.join(",", states)))
+                    .queryParamIfPresent("fields", Optional.ofNullable(shardFields))
+                    .queryParamIfPresent("hours", Optional.ofNullable(hours))
+                    .encode()
+                    .build().toUri();
+            futures.put(shard, CompletableFuture.supplyAsync(() -> call(shard, () -> restClient.get()
+                    .uri(uri)
+                    .headers(headers -> shardHeaders(headers, authorization))
+                    .retrieve()
+                    .body(new ParameterizedTypeReference<List<RankedWeather>>() {})), fanout));
+        }
+        // The local shard is read on the request thread, which carries the security context
+        if (shardsFor(cities).contains(nodeIndex)) {
+            futures.put(nodeIndex, CompletableFuture.completedFuture(weatherTopService.getTopWeather(metric, n, descending,
+                    date, from, to, cities, states, WeatherProjection.of(shardFields, hours))));
+        }
+        // Each shard returns at most n entries, so merging them stays O(n * shards)
+        List<RankedWeather> merged = new ArrayList<>();
+        futures.forEach((shard, future) -> join(future).forEach(ranked -> {
+            WeatherDTO weather = asRow(ranked.getWeather());
+            merged.add(new RankedWeather(ranked.getValue(), withId(weather, toGlobalId(weather.getId(), shard))));
+        }));
+        Comparator<Double> values = descending ? Comparator.reverseOrder() : Comparator.naturalOrder();
+        merged.sort(Comparator.comparing(RankedWeather::getValue, values)
+                .thenComparing(ranked -> ranked.getWeather().getId()));
+        List<RankedWeather> top = new ArrayList<>(merged.subList(0, Math.min(n, merged.size())));
+        if (!requested.includes("id")) {
+            top.forEach(ranked -> ranked.getWeather().setId(null));
+        }
+        return top;
+    }
+
+    private List<WeatherLookup> fetchShardLookups(int shard, List<Integer> localIds, String fields, String hours,
+                                                  String authorization) {
+        URI uri = UriComponentsBuilder.fromHttpUrl(nodes.get(shard) + "/weather/_mget")
+                .queryParamIfPresent("fields", Optional.ofNullable(fields))
+                .queryParamIfPresent("hours", Optional.ofNullable(hours))
+                .build().toUri();
+        return call(shard, () -> restClient.post()
+                .uri(uri)
+                .headers(headers -> shardHeaders(headers, authorization))
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(new WeatherMultiGetRequest(localIds))
+                .retrieve()
+                .body(new ParameterizedTypeReference<List<WeatherLookup>>() {}));
+    }
+
+    private ShardPage fetchShardPage(int shard, String date, List<String> cities, List<String> states, String sortBy,
+                                     String sortDirection, int window, String fields, String hours, String authorization) {
+        List<WeatherDTO> content = new ArrayList<>();
+        long total;
+        if (shard == nodeIndex) {
+            Page<WeatherDTO> local = weatherService.getAllWeatherRecords(date, cities, states, sortBy, sortDirection, 0, window,
+                    WeatherProjection.of(fields, hours));
+            content.addAll(local.getContent());
+            total = local.getTotalElements();
+        } else {
+            URI uri = UriComponentsBuilder.fromHttpUrl(nodes.get(shard) + "/weather")
+                    .queryParamIfPresent("date", Optional.ofNullable(date))
+                    .queryParamIfPresent("city", cities.isEmpty() ? Optional.empty() : Optional.of(String.join(",", cities)))
+                    .queryParamIfPresent("state", states.isEmpty() ? Optional.empty() : Optional.of(String.join(",", states)))
+                    .queryParamIfPresent("sort", Optional.ofNullable(sortParameter(sortBy, sortDirection)))
+                    .queryParam("page", 0)
+                    .queryParam("size", window)
+                    .queryParamIfPresent("fields", Optional.ofNullable(fields))
+                    .queryParamIfPresent("hours", Optional.ofNullable(hours))
+                    .encode()
+                    .build().toUri();
+            JsonNode body = call(shard, () -> restClient.get()
+                    .uri(uri)
+                    .headers(headers -> shardHeaders(headers, authorization))
+                    .retrieve()
+                    .body(JsonNode.class));
+            try {
+                for (JsonNode node : body.path("content")) {
+                    content.add(asRow(objectMapper.treeToValue(node, WeatherDTO.class)));
+                }
+            } catch (JsonProcessingException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_GATEWAY, "Invalid response from shard " + shard);
+            }
+            total = body.path("totalElements").asLong();
+        }
+        content.replaceAll(dto -> withId(dto, toGlobalId(dto.getId(), shard)));
+        return new ShardPage(content, total);
+    }
+
+    // Cities are the partition key, so a city filter only needs the shards owning those cities
+    private List<Integer> shardsFor(List<String> cities) {
+        TreeSet<Integer> shards = new TreeSet<>();
+        if (cities.isEmpty()) {
+            for (int i = 0; i < nodes.size(); i++) {
+                shards.add(i);
+            }
+        } else {
+            cities.forEach(city -> shards.add(ring.ownerOf(city)));
+        }
+        return new ArrayList<>(shards);
+    }
+
+    private <T> T call(int shard, RemoteCall<T> remoteCall) {
+        try {
+            return remoteCall.execute();
+        } catch (HttpClientErrorException.TooManyRequests | HttpServerErrorException.ServiceUnavailable e) {
+            // The shard is shedding load; the client's own budget is not what ran out
+            String retryAfter = e.getResponseHeaders() != null ? e.getResponseHeaders().getFirst(HttpHeaders.RETRY_AFTER) : null;
+            throw new ShardUnavailableException("Shard " + shard + " is overloaded",
+                    retryAfter != null ? retryAfter : Integer.toString(retryAfterSeconds));
+        } catch (HttpClientErrorException e) {
+            throw new ResponseStatusException(e.getStatusCode(), e.getResponseBodyAsString());
+        } catch (RestClientResponseException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_GATEWAY, "Shard " + shard + " failed with " + e.getStatusCode());
+        } catch (ResourceAccessException e) {
+            throw new ShardUnavailableException("Shard " + shard + " is unavailable", Integer.toString(retryAfterSeconds));
+        } catch (RestClientException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_GATEWAY, "Invalid response from shard " + shard);
+        }
+    }
+
+    private void shardHeaders(HttpHeaders headers, String authorization) {
+        headers.set(SHARD_LOCAL_HEADER, new String(secret, StandardCharsets.UTF_8));
+        if (authorization != null) {
+            headers.set(HttpHeaders.AUTHORIZATION, authorization);
+        }
+    }
+
+    private static Integer toGlobalId(Integer localId, int shard) {
+        if (localId == null) {
+            return null;
+        }
+        try {
+            return Math.addExact(Math.multiplyExact(localId, 1 << SHARD_BITS), shard);
+        } catch (ArithmeticException e) {
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR,
+                    "Local id " + localId + " of shard " + shard + " does not fit in a global id");
+        }
+    }
+
+    // The node a global id belongs to, or -1 when no node could have issued it
+    private int shardOf(Integer id) {
+        if (id == null || id < 0) {
+            return -1;
+        }
+        int shard = id & SHARD_MASK;
+        return shard < nodes.size() ? shard : -1;
+    }
+
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private static String currentAuthorization() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        return attributes instanceof ServletRequestAttributes servletAttributes
+                ? servletAttributes.getRequest().getHeader(HttpHeaders.AUTHORIZATION)
+                : null;
+    }
+
+    // Same ordering as the repository: nulls sort low, ties broken by id ascending
+    private static Comparator<WeatherDTO> comparator(String sortBy, boolean descending) {
+        Comparator<WeatherDTO> byId = Comparator.comparing(WeatherDTO::getId);
+        if (!"date".equals(sortBy)) {
+            return byId;
+        }
+        Comparator<Date> dates = descending
+                ? Comparator.nullsLast(Comparator.<Date>reverseOrder())
+                : Comparator.nullsFirst(Comparator.<Date>naturalOrder());
+        return Comparator.comparing(WeatherDTO::getDate, dates).thenComparing(byId);
+    }
+
+    private static Sort sort(String sortBy, boolean descending) {
+        if (!"date".equals(sortBy)) {
+            return Sort.by(Sort.Direction.ASC, "id");
+        }
+        return Sort.by(descending ? Sort.Direction.DESC : Sort.Direction.ASC, "date").and(Sort.by(Sort.Direction.ASC, "id"));
+    }
+
+    private static String sortParameter(String sortBy, String sortDirection) {
+        if (!"date".equals(sortBy)) {
+            return null;
+        }
+        return "desc".equalsIgnoreCase(sortDirection) ? "-date" : "date";
+    }
+
+    private static WeatherDTO withId(WeatherDTO dto, Integer id) {
+        return new WeatherDTO(id, dto.getDate(), dto.getLat(), dto.getLon(), dto.getCity(), dto.getState(), dto.getTemperatures());
+    }
+
+    // Local reads return the DATE column as java.sql.Date; do the same for remote rows so they serialize alike
+    private static WeatherDTO asRow(WeatherDTO dto) {
+        if (dto.getDate() != null) {
+            dto.setDate(new java.sql.Date(dto.getDate().getTime()));
+        }
+        return dto;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        fanout.shutdownNow();
+    }
+
+    @FunctionalInterface
+    private interface RemoteCall<T> {
+        T execute();
+    }
+
+    private static final class ShardUnavailableException extends ResponseStatusException {
+        private final String retryAfter;
+
+        ShardUnavailableException(String reason, String retryAfter) {
+            super(HttpStatus.SERVICE_UNAVAILABLE, reason);
+            this.retryAfter = retryAfter;
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            HttpHeaders headers = new HttpHeaders();
+            headers.set(HttpHeaders.RETRY_AFTER, retryAfter);
+            return headers;
+        }
+    }
+
+    private static final class ShardPage {
+        final List<WeatherDTO> content;
+        final long totalElements;
+
+        ShardPage(List<WeatherDTO> content, long totalElements) {
+            this.content = content;
+            this.totalElements = totalElements;
+        }
+    }
+}
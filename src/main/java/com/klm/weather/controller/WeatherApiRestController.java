@@ -1,7 +1,16 @@
 package com.klm.weather.controller;
 
+import com.klm.weather.cluster.WeatherClusterService;
+import com.klm.weather.model.RankedWeather;
 import com.klm.weather.model.WeatherDTO;
+import com.klm.weather.model.WeatherLookup;
+import com.klm.weather.model.WeatherMultiGetRequest;
+import com.klm.weather.service.TemperatureMetric;
+import com.klm.weather.service.WeatherProjection;
 import com.klm.weather.service.WeatherService;
+import com.klm.weather.service.WeatherStreamService;
+import com.klm.weather.service.WeatherTopService;
+import io.swagger.v3.oas.annotations.Hidden;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -9,15 +18,21 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.http.ResponseEntity;
 import org.springframework.data.domain.Page;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 @RestController
@@ -27,10 +42,25 @@ import java.util.stream.Collectors;
 public class WeatherApiRestController {
 
     private final WeatherService weatherService;
+    private final WeatherStreamService weatherStreamService;
+    private final WeatherTopService weatherTopService;
+    // Only present in cluster mode (app.cluster.enabled)
+    private final WeatherClusterService weatherClusterService;
+    private final int maxMultiGetIds;
+    private final int maxTopN;
 
     @Autowired
-    public WeatherApiRestController(WeatherService weatherService) {
+    public WeatherApiRestController(WeatherService weatherService, WeatherStreamService weatherStreamService,
+                                    WeatherTopService weatherTopService,
+                                    Optional<WeatherClusterService> weatherClusterService,
+                                    @Value("${app.mget.max-ids:1000}") int maxMultiGetIds,
+                                    @Value("${app.top.max-n:1000}") int maxTopN) {
         this.weatherService = weatherService;
+        this.weatherStreamService = weatherStreamService;
+        this.weatherTopService = weatherTopService;
+        this.weatherClusterService = weatherClusterService.orElse(null);
+        this.maxMultiGetIds = maxMultiGetIds;
+        this.maxTopN = maxTopN;
     }
 
     @PreAuthorize("hasRole('ADMIN')")
@@ -42,7 +72,9 @@ public class WeatherApiRestController {
     })
     public ResponseEntity<WeatherDTO> createWeatherRecord(@Valid @RequestBody WeatherDTO weather) {
         // Converting to WeatherDTO after creating the record in the database
-        WeatherDTO createdWeather = weatherService.createWeatherRecord(weather);
+        WeatherDTO createdWeather = isCoordinator()
+                ? weatherClusterService.createWeatherRecord(weather)
+                : weatherService.createWeatherRecord(weather);
         return ResponseEntity.status(201).body(createdWeather);
     }
 
@@ -58,12 +90,18 @@ public class WeatherApiRestController {
             @RequestParam(required = false) String date,
             @Parameter(description = "Filter by city name", example = "London")
             @RequestParam(required = false) String city,
+            @Parameter(description = "Filter by state name", example = "Illinois")
+            @RequestParam(required = false) String state,
             @Parameter(description = "Sorting format (field,direction)", example = "date,asc")
             @RequestParam(defaultValue = "date,asc") String sort,
             @Parameter(description = "Page number (starts from 0)", example = "0")
             @RequestParam(defaultValue = "0") int page,   // Default to first page
             @Parameter(description = "Page size (number of results per page)", example = "10")
-            @RequestParam(defaultValue = "10") int size   // Default to 10 results per page
+            @RequestParam(defaultValue = "10") int size,   // Default to 10 results per page
+            @Parameter(description = "Comma separated fields to return", example = "id,date,city,temperatures")
+            @RequestParam(required = false) String fields,
+            @Parameter(description = "Inclusive range of hourly temperatures to return (from-to)", example = "12-17")
+            @RequestParam(required = false) String hours
     ) {
         String sortBy = "id";  // Default sorting by ID if no sort param provided
         String sortDirection = "asc";
@@ -75,20 +113,87 @@ public class WeatherApiRestController {
             sortDirection = "desc";
         }
 
-        // Convert city parameter to a list (case insensitive)
-        List<String> cities = (city != null)
-                ? Arrays.stream(city.split(","))
-                .map(String::trim)
-                .map(String::toLowerCase)  // Case insensitive handling
-                .collect(Collectors.toList())
-                : Collections.emptyList();
+        List<String> cities = parseNames(city);
+        List<String> states = parseNames(state);
 
         // Fetch paginated weather records based on the given filters
-        Page<WeatherDTO> records = weatherService.getAllWeatherRecords(date, cities, sortBy, sortDirection, page, size);
+        Page<WeatherDTO> records = isCoordinator()
+                ? weatherClusterService.getAllWeatherRecords(date, cities, states, sortBy, sortDirection, page, size, fields, hours)
+                : weatherService.getAllWeatherRecords(date, cities, states, sortBy, sortDirection, page, size,
+                WeatherProjection.of(fields, hours));
         return ResponseEntity.ok(records);
 
     }
 
+    @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Stream new weather records", description = "Pushes weather records as Server-Sent Events as soon as they are created.")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Event stream of weather records"),
+            @ApiResponse(responseCode = "400", description = "Invalid request parameters")
+    })
+    public SseEmitter streamWeatherRecords(
+            @Parameter(description = "Filter by date (YYYY-MM-DD)", example = "2024-03-25")
+            @RequestParam(required = false) String date,
+            @Parameter(description = "Filter by city name", example = "London")
+            @RequestParam(required = false) String city,
+            @Parameter(description = "Filter by state name", example = "Illinois")
+            @RequestParam(required = false) String state,
+            @Parameter(description = "Resume after this event id")
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId
+    ) {
+        return weatherStreamService.subscribe(date, parseNames(city), state, lastEventId);
+    }
+
+    @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
+    @GetMapping("/top")
+    @Operation(summary = "Get top-N weather records by temperature", description = "Ranks records by their max, min or mean temperature, optionally over an hour range, with the usual filters.")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Up to n ranked weather records"),
+            @ApiResponse(responseCode = "400", description = "Invalid request parameters")
+    })
+    public ResponseEntity<List<RankedWeather>> getTopWeather(
+            @Parameter(description = "Statistic to rank by: max, min or mean", example = "max")
+            @RequestParam(defaultValue = "max") String metric,
+            @Parameter(description = "Number of records to return", example = "50")
+            @RequestParam(defaultValue = "10") int n,
+            @Parameter(description = "asc or desc; defaults to desc for max and mean, asc for min", example = "desc")
+            @RequestParam(required = false) String order,
+            @Parameter(description = "Filter by exact date (YYYY-MM-DD)", example = "2019-07-01")
+            @RequestParam(required = false) String date,
+            @Parameter(description = "Filter by first date, inclusive (YYYY-MM-DD)", example = "2019-07-01")
+            @RequestParam(required = false) String from,
+            @Parameter(description = "Filter by last date, inclusive (YYYY-MM-DD)", example = "2019-07-31")
+            @RequestParam(required = false) String to,
+            @Parameter(description = "Filter by city name", example = "London")
+            @RequestParam(required = false) String city,
+            @Parameter(description = "Filter by state name", example = "Illinois")
+            @RequestParam(required = false) String state,
+            @Parameter(description = "Comma separated fields to return", example = "id,date,city")
+            @RequestParam(required = false) String fields,
+            @Parameter(description = "Inclusive range of hours to rank by and return (from-to)", example = "12-17")
+            @RequestParam(required = false) String hours) {
+
+        if (n < 1 || n > maxTopN) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "n must be between 1 and " + maxTopN);
+        }
+        TemperatureMetric temperatureMetric = TemperatureMetric.of(metric);
+        boolean descending;
+        if (order == null) {
+            descending = temperatureMetric.isDescendingByDefault();
+        } else if ("asc".equalsIgnoreCase(order) || "desc".equalsIgnoreCase(order)) {
+            descending = "desc".equalsIgnoreCase(order);
+        } else {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid order. Use asc or desc.");
+        }
+        List<RankedWeather> top = isCoordinator()
+                ? weatherClusterService.getTopWeather(temperatureMetric, n, descending, date, from, to,
+                        parseNames(city), parseNames(state), fields, hours)
+                : weatherTopService.getTopWeather(temperatureMetric, n, descending, date, from, to,
+                        parseNames(city), parseNames(state), WeatherProjection.of(fields, hours));
+        return ResponseEntity.ok(top);
+    }
+
     @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
     @GetMapping("/{id}")
     @Operation(summary = "Get weather record by ID", description = "Retrieves a single weather record by its ID.")
@@ -96,10 +201,68 @@ public class WeatherApiRestController {
             @ApiResponse(responseCode = "200", description = "Weather record found"),
             @ApiResponse(responseCode = "404", description = "Weather record not found")
     })
-    public ResponseEntity<WeatherDTO> getWeatherById(@PathVariable Integer id) {
+    public ResponseEntity<WeatherDTO> getWeatherById(
+            @PathVariable Integer id,
+            @Parameter(description = "Comma separated fields to return", example = "id,date,city,temperatures")
+            @RequestParam(required = false) String fields,
+            @Parameter(description = "Inclusive range of hourly temperatures to return (from-to)", example = "12-17")
+            @RequestParam(required = false) String hours) {
 
-        return weatherService.getWeatherById(id)
+        Optional<WeatherDTO> weather = isCoordinator()
+                ? weatherClusterService.getWeatherById(id, fields, hours)
+                : weatherService.getWeatherById(id, WeatherProjection.of(fields, hours));
+        return weather
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
+
+    @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
+    @PostMapping("/_mget")
+    @Operation(summary = "Get many weather records by ID", description = "Retrieves up to app.mget.max-ids records in one request. Results follow the order of the requested IDs, with found=false for unknown IDs.")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "One entry per requested ID"),
+            @ApiResponse(responseCode = "400", description = "No IDs or too many IDs")
+    })
+    public ResponseEntity<List<WeatherLookup>> getWeatherByIds(
+            @Valid @RequestBody WeatherMultiGetRequest request,
+            @Parameter(description = "Comma separated fields to return", example = "id,date,city,temperatures")
+            @RequestParam(required = false) String fields,
+            @Parameter(description = "Inclusive range of hourly temperatures to return (from-to)", example = "12-17")
+            @RequestParam(required = false) String hours) {
+
+        if (request.getIds().size() > maxMultiGetIds) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "At most " + maxMultiGetIds + " ids per request");
+        }
+        List<WeatherLookup> results = isCoordinator()
+                ? weatherClusterService.getWeatherByIds(request.getIds(), fields, hours)
+                : weatherService.getWeatherByIds(request.getIds(), WeatherProjection.of(fields, hours));
+        return ResponseEntity.ok(results);
+    }
+
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping("/_events")
+    @Hidden
+    public ResponseEntity<Void> relayWeatherCreated(@RequestBody WeatherDTO weather) {
+        // Only other nodes relay records they stored, see WeatherClusterService
+        if (weatherClusterService == null || !weatherClusterService.isShardLocalRequest()) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND);
+        }
+        weatherClusterService.onWeatherRelayed(weather);
+        return ResponseEntity.accepted().build();
+    }
+
+    // In cluster mode, requests from clients are coordinated across shards; requests from other nodes stay local
+    private boolean isCoordinator() {
+        return weatherClusterService != null && !weatherClusterService.isShardLocalRequest();
+    }
+
+    // Convert a comma separated city/state parameter to a list (case insensitive)
+    private static List<String> parseNames(String names) {
+        return (names != null)
+                ? Arrays.stream(names.split(","))
+                .map(String::trim)
+                .map(String::toLowerCase)  // Case insensitive handling
+                .collect(Collectors.toList())
+                : Collections.emptyList();
+    }
 }
@@ -0,0 +1,46 @@
+package com.klm.weather.controller;
+
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import com.klm.weather.model.WeatherDTO;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.MappingJacksonValue;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.AbstractMappingJacksonResponseBodyAdvice;
+
+import java.util.Arrays;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Limits serialized {@link WeatherDTO}s to the fields a client asked for with {@code fields=...}.
+ * Responses without that parameter serialize every field, nulls included, as before projections existed,
+ * through the default filter from {@link WeatherJsonConfig}.
+ */
+@RestControllerAdvice(assignableTypes = WeatherApiRestController.class)
+public class WeatherFieldsAdvice extends AbstractMappingJacksonResponseBodyAdvice {
+
+    @Override
+    protected void beforeBodyWriteInternal(MappingJacksonValue bodyContainer, MediaType contentType,
+                                           MethodParameter returnType, ServerHttpRequest request,
+                                           ServerHttpResponse response) {
+        if (!(request instanceof ServletServerHttpRequest servletRequest)) {
+            return;
+        }
+        String fields = servletRequest.getServletRequest().getParameter("fields");
+        if (fields == null) {
+            return;
+        }
+        // The controller has already rejected unknown fields
+        Set<String> requested = Arrays.stream(fields.split(","))
+                .map(String::trim)
+                .collect(Collectors.toSet());
+        bodyContainer.setFilters(new SimpleFilterProvider()
+                .addFilter(WeatherDTO.FIELDS_FILTER, SimpleBeanPropertyFilter.filterOutAllExcept(requested))
+                .setDefaultFilter(SimpleBeanPropertyFilter.serializeAll()));
+    }
+}
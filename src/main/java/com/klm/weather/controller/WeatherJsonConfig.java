@@ -0,0 +1,19 @@
+package com.klm.weather.controller;
+
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import org.springframework.boot.autoconfigure.jackson.Jackson2ObjectMapperBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class WeatherJsonConfig {
+
+    // Every serialization of WeatherDTO needs a filter for WeatherDTO.FIELDS_FILTER; by default it keeps
+    // all fields, and WeatherFieldsAdvice narrows it per request
+    @Bean
+    public Jackson2ObjectMapperBuilderCustomizer weatherFieldsFilterCustomizer() {
+        return builder -> builder.filters(new SimpleFilterProvider()
+                .setDefaultFilter(SimpleBeanPropertyFilter.serializeAll()));
+    }
+}
@@ -0,0 +1,9 @@
+package com.klm.weather.datasource;
+
+/**
+ * Lookup keys of {@link ReadWriteRoutingDataSource}.
+ */
+public enum DataSourceRole {
+    PRIMARY,
+    REPLICA
+}
@@ -0,0 +1,46 @@
+package com.klm.weather.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+/**
+ * Sizes Hikari pools from the number of available cores in the {@code performance} profile.
+ * <p>
+ * Uses the usual {@code cores * 2 + 1} starting point and a fixed size pool (minimum idle equals
+ * maximum) so there is no connection churn under load. {@code app.datasource.pool-size} replaces
+ * the computed size. Pools whose maximum size is already set, whether through their own
+ * {@code *.hikari.maximum-pool-size} property (e.g. {@code app.datasource.replica.hikari.*}) or in
+ * code, are left alone.
+ */
+@Component
+@Profile("performance")
+public class HikariPoolSizing implements BeanPostProcessor {
+
+    private static final Logger logger = LoggerFactory.getLogger(HikariPoolSizing.class);
+
+    private final Environment environment;
+
+    public HikariPoolSizing(Environment environment) {
+        this.environment = environment;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        // Runs after the pool's properties are bound; Hikari reports an unset maximum as -1
+        if (bean instanceof HikariDataSource dataSource && dataSource.getMaximumPoolSize() <= 0) {
+            int poolSize = environment.getProperty("app.datasource.pool-size", Integer.class, 0);
+            if (poolSize <= 0) {
+                poolSize = Runtime.getRuntime().availableProcessors() * 2 + 1;
+            }
+            dataSource.setMaximumPoolSize(poolSize);
+            dataSource.setMinimumIdle(poolSize);
+            logger.info("Sized connection pool {} to {} connections", dataSource.getPoolName(), poolSize);
+        }
+        return bean;
+    }
+}
@@ -0,0 +1,55 @@
+package com.klm.weather.datasource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers which authenticated clients wrote recently, so their reads can be pinned to the
+ * primary until the replica has had time to catch up. A window of 0 turns this off.
+ */
+@Component
+public class ReadYourWritesTracker {
+
+    private final long windowMs;
+    private final Map<String, Long> lastWriteByClient = new ConcurrentHashMap<>();
+
+    public ReadYourWritesTracker(@Value("${app.datasource.read-your-writes-ms:5000}") long windowMs) {
+        this.windowMs = windowMs;
+    }
+
+    public void recordWrite() {
+        String client = currentClient();
+        if (windowMs > 0 && client != null) {
+            lastWriteByClient.put(client, System.currentTimeMillis());
+        }
+    }
+
+    /**
+     * @return whether the current client wrote within the window and must read from the primary
+     */
+    public boolean requiresPrimary() {
+        String client = currentClient();
+        if (client == null) {
+            return false;
+        }
+        Long lastWrite = lastWriteByClient.get(client);
+        if (lastWrite == null) {
+            return false;
+        }
+        if (System.currentTimeMillis() - lastWrite < windowMs) {
+            return true;
+        }
+        lastWriteByClient.remove(client, lastWrite);
+        return false;
+    }
+
+    private static String currentClient() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null && authentication.isAuthenticated() ? authentication.getName() : null;
+    }
+}
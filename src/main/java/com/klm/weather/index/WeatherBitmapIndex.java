@@ -0,0 +1,384 @@
+package com.klm.weather.index;
+
+import com.klm.weather.model.WeatherRow;
+import com.klm.weather.repository.WeatherRepository;
+import com.klm.weather.service.WeatherCreatedEvent;
+import jakarta.annotation.PreDestroy;
+import org.roaringbitmap.FastAggregation;
+import org.roaringbitmap.PeekableIntIterator;
+import org.roaringbitmap.RoaringBitmap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory compressed bitmap indexes over weather record ids, one bitmap per location and one
+ * per date.
+ * <p>
+ * City and state filters become an OR over the bitmaps of the matching locations, the date filter
+ * an AND with that date's bitmap, and the total count is the cardinality of the result. Paging
+ * walks the result in id order, or date bucket by date bucket for date sorting, so only the ids of
+ * the requested page have to be fetched from the database.
+ * <p>
+ * The index is built when the application is ready and updated after every committed local
+ * insert. Other processes may write to the same table, so a background check compares it with the
+ * table every {@code app.index.bitmap.verify-interval-ms}: rows inserted elsewhere are picked up by
+ * id, and a row count that still disagrees (rows deleted, or committed out of id order) marks the
+ * index out of sync until it has been rebuilt. Reads only look at that flag, so the check costs
+ * nothing on the request path; drift from other writers is visible for up to one interval.
+ */
+@Component
+public class WeatherBitmapIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(WeatherBitmapIndex.class);
+    private static final int BUILD_BATCH_SIZE = 10_000;
+
+    private final WeatherRepository weatherRepository;
+    private final boolean enabled;
+    private final long verifyIntervalMs;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ScheduledExecutorService verifier;
+    private Bitmaps bitmaps = new Bitmaps();
+    // Also receives inserts while a rebuild is loading, so none are lost when it is swapped in
+    private Bitmaps rebuilding;
+    private volatile boolean ready;
+    private volatile boolean inSync;
+
+    public WeatherBitmapIndex(WeatherRepository weatherRepository,
+                              @Value("${app.index.bitmap.enabled:true}") boolean enabled,
+                              @Value("${app.index.bitmap.verify-interval-ms:5000}") long verifyIntervalMs) {
+        this.weatherRepository = weatherRepository;
+        this.enabled = enabled;
+        this.verifyIntervalMs = verifyIntervalMs;
+        this.verifier = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "weather-bitmap-verify");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        if (!enabled) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        rebuild();
+        ready = true;
+        inSync = true;
+        logger.info("Built weather bitmap index over {} records in {} ms", size(), System.currentTimeMillis() - start);
+        verifier.scheduleWithFixedDelay(() -> {
+            try {
+                verify();
+            } catch (RuntimeException e) {
+                logger.warn("Checking the weather bitmap index against the database failed", e);
+            }
+        }, verifyIntervalMs, verifyIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        verifier.shutdownNow();
+    }
+
+    // Records created while the index is being built are added here as well; adding twice is harmless
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onWeatherCreated(WeatherCreatedEvent event) {
+        if (enabled && event.getWeather().getId() != null) {
+            add(event.getWeather().getId(), event.getLocationId(), event.getWeather().getDate());
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * @return {@code true} when the last check found the index holding exactly the table's records,
+     * so its answers can be trusted; {@code false} when callers must query the database
+     */
+    public boolean isInSync() {
+        return ready && inSync;
+    }
+
+    /**
+     * Compares the index with the table after adding the rows other processes inserted since the
+     * last check, and rebuilds it when they still disagree. Runs in the background; callable
+     * directly to force a check.
+     */
+    public synchronized void verify() {
+        if (!ready) {
+            return;
+        }
+        int maxId = weatherRepository.findMaxId();
+        int lastId = lastId();
+        while (lastId < maxId) {
+            List<WeatherRow> batch = weatherRepository.findSummariesAfter(lastId, PageRequest.ofSize(BUILD_BATCH_SIZE));
+            if (batch.isEmpty()) {
+                break;
+            }
+            addAll(batch);
+            lastId = batch.get(batch.size() - 1).getId();
+        }
+        long count = weatherRepository.count();
+        long size = size();
+        // Inserts committed after the max id was read also count; compare only up to that id
+        if (count == size || count > size && weatherRepository.countByIdLessThanEqual(maxId) == sizeUpTo(maxId)) {
+            inSync = true;
+            return;
+        }
+        inSync = false;
+        logger.info("Weather bitmap index disagrees with the database, rebuilding");
+        rebuild();
+        inSync = true;
+    }
+
+    public void add(int id, Integer locationId, Date date) {
+        lock.writeLock().lock();
+        try {
+            bitmaps.add(id, locationId, date);
+            if (rebuilding != null) {
+                rebuilding.add(id, locationId, date);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean contains(int id) {
+        lock.readLock().lock();
+        try {
+            return bitmaps.all.contains(id);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long size() {
+        lock.readLock().lock();
+        try {
+            return bitmaps.all.getLongCardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Evaluates a filter and returns one page of matching ids, in the same order the repository
+     * would return them: by id, or by date (undated records sorting low) and then id.
+     *
+     * @param date        records on this date or without a date, {@code null} for any date
+     * @param locationIds records at one of these locations, {@code null} for any location
+     */
+    public IndexPage page(Date date, Collection<Integer> locationIds, boolean sortByDate, boolean descending,
+                          long offset, int size) {
+        lock.readLock().lock();
+        try {
+            RoaringBitmap all = bitmaps.all;
+            RoaringBitmap locations = locationIds != null ? locationBitmap(locationIds) : all;
+            List<RoaringBitmap> buckets = new ArrayList<>();
+            if (date != null) {
+                buckets.add(bitmaps.undated);
+                RoaringBitmap day = bitmaps.byDate.get(epochDay(date));
+                if (day != null) {
+                    buckets.add(day);
+                }
+            } else if (sortByDate) {
+                buckets.add(bitmaps.undated);
+                buckets.addAll(bitmaps.byDate.values());
+            } else {
+                buckets.add(all);
+            }
+            if (sortByDate && descending) {
+                // Dates descending, undated records last
+                List<RoaringBitmap> reversed = new ArrayList<>(buckets.subList(1, buckets.size()));
+                Collections.reverse(reversed);
+                reversed.add(buckets.get(0));
+                buckets = reversed;
+            }
+            if (!sortByDate && buckets.size() > 1) {
+                buckets = List.of(FastAggregation.or(buckets.iterator()));
+            }
+
+            List<Integer> ids = new ArrayList<>(size);
+            long total = 0;
+            long skip = offset;
+            for (RoaringBitmap bucket : buckets) {
+                // Buckets outside the page only add to the total, so count them without materializing the AND
+                long cardinality = locations == all ? bucket.getLongCardinality() : RoaringBitmap.andCardinality(bucket, locations);
+                total += cardinality;
+                if (ids.size() >= size) {
+                    continue;
+                }
+                if (skip >= cardinality) {
+                    skip -= cardinality;
+                    continue;
+                }
+                RoaringBitmap matches = locations == all ? bucket : RoaringBitmap.and(bucket, locations);
+                PeekableIntIterator iterator = matches.getIntIterator();
+                iterator.advanceIfNeeded(matches.select((int) skip));
+                skip = 0;
+                while (iterator.hasNext() && ids.size() < size) {
+                    ids.add(iterator.next());
+                }
+            }
+            return new IndexPage(ids, total);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Loads every row into fresh bitmaps and swaps them in, so readers keep the old ones meanwhile
+    private void rebuild() {
+        Bitmaps fresh = new Bitmaps();
+        lock.writeLock().lock();
+        try {
+            rebuilding = fresh;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        boolean loaded = false;
+        try {
+            int lastId = 0;
+            List<WeatherRow> batch;
+            do {
+                batch = weatherRepository.findSummariesAfter(lastId, PageRequest.ofSize(BUILD_BATCH_SIZE));
+                lock.writeLock().lock();
+                try {
+                    for (WeatherRow row : batch) {
+                        fresh.add(row.getId(), row.getLocationId(), row.getDate());
+                    }
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                if (!batch.isEmpty()) {
+                    lastId = batch.get(batch.size() - 1).getId();
+                }
+            } while (batch.size() == BUILD_BATCH_SIZE);
+            loaded = true;
+        } finally {
+            lock.writeLock().lock();
+            try {
+                if (loaded) {
+                    bitmaps = fresh;
+                }
+                rebuilding = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    private void addAll(List<WeatherRow> rows) {
+        lock.writeLock().lock();
+        try {
+            for (WeatherRow row : rows) {
+                bitmaps.add(row.getId(), row.getLocationId(), row.getDate());
+                if (rebuilding != null) {
+                    rebuilding.add(row.getId(), row.getLocationId(), row.getDate());
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private int lastId() {
+        lock.readLock().lock();
+        try {
+            return bitmaps.all.isEmpty() ? 0 : bitmaps.all.last();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private long sizeUpTo(int id) {
+        lock.readLock().lock();
+        try {
+            return bitmaps.all.rankLong(id);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private RoaringBitmap locationBitmap(Collection<Integer> locationIds) {
+        List<RoaringBitmap> matching = new ArrayList<>(locationIds.size());
+        for (Integer locationId : locationIds) {
+            RoaringBitmap bitmap = bitmaps.byLocation.get(locationId);
+            if (bitmap != null) {
+                matching.add(bitmap);
+            }
+        }
+        return matching.isEmpty() ? new RoaringBitmap() : FastAggregation.or(matching.iterator());
+    }
+
+    // The DATE column is truncated in the JVM default time zone, so bucket the same way
+    private static long epochDay(Date date) {
+        if (date instanceof java.sql.Date sqlDate) {
+            return sqlDate.toLocalDate().toEpochDay();
+        }
+        return date.toInstant().atZone(ZoneId.systemDefault()).toLocalDate().toEpochDay();
+    }
+
+    // The bitmaps of one index generation, guarded by the index lock
+    private static final class Bitmaps {
+        private final RoaringBitmap all = new RoaringBitmap();
+        private final RoaringBitmap undated = new RoaringBitmap();
+        private final Map<Integer, RoaringBitmap> byLocation = new HashMap<>();
+        private final NavigableMap<Long, RoaringBitmap> byDate = new TreeMap<>();
+
+        private void add(int id, Integer locationId, Date date) {
+            all.add(id);
+            if (locationId != null) {
+                byLocation.computeIfAbsent(locationId, k -> new RoaringBitmap()).add(id);
+            }
+            if (date == null) {
+                undated.add(id);
+            } else {
+                byDate.computeIfAbsent(epochDay(date), k -> new RoaringBitmap()).add(id);
+            }
+        }
+    }
+
+    /**
+     * One page of matching ids plus the total number of matches.
+     */
+    public static final class IndexPage {
+        private final List<Integer> ids;
+        private final long total;
+
+        IndexPage(List<Integer> ids, long total) {
+            this.ids = ids;
+            this.total = total;
+        }
+
+        public List<Integer> getIds() {
+            return ids;
+        }
+
+        public long getTotal() {
+            return total;
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.klm.weather.limit;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Concurrency limit that adapts to observed latency, in the style of a gradient limiter.
+ * <p>
+ * A long-term average of the request latency serves as the no-load baseline. While recent
+ * requests are as fast as the baseline (within {@code tolerance}) the limit grows by roughly
+ * {@code sqrt(limit)} per sample; once latency rises because work is queueing (for example on the
+ * connection pool) the gradient {@code baseline / latency} drops below one and the limit shrinks
+ * proportionally. Failed requests back the limit off multiplicatively, like AIMD.
+ * <p>
+ * Every release updates the limit, so the state is kept in atomics and updated with
+ * compare-and-set instead of a lock that all requests of an endpoint class would contend on.
+ */
+public class AdaptiveConcurrencyLimit {
+
+    private static final double SMOOTHING = 0.2;
+    private static final double BACKOFF_RATIO = 0.9;
+    private static final int BASELINE_WINDOW = 600;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    // Doubles stored as their long bits
+    private final AtomicLong limit;
+    private final AtomicLong baselineRttNanos = new AtomicLong(Double.doubleToRawLongBits(0));
+
+    public AdaptiveConcurrencyLimit(int initialLimit, int minLimit, int maxLimit, double tolerance) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+        this.limit = new AtomicLong(Double.doubleToRawLongBits(Math.max(minLimit, Math.min(maxLimit, initialLimit))));
+    }
+
+    /**
+     * @return whether a slot was taken; every successful acquire must be followed by a release
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= getLimit()) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * @param rttNanos how long the request held its slot
+     * @param dropped  whether the request failed in a way that indicates overload
+     */
+    public void release(long rttNanos, boolean dropped) {
+        int inFlightAtEnd = inFlight.getAndDecrement();
+        update(rttNanos, dropped, inFlightAtEnd);
+    }
+
+    /**
+     * Gives a slot back without a latency sample, for requests turned away before doing any work.
+     */
+    public void cancel() {
+        inFlight.decrementAndGet();
+    }
+
+    private void update(long rttNanos, boolean dropped, int inFlightAtEnd) {
+        double baseline = dropped ? 0 : updateBaseline(rttNanos);
+        while (true) {
+            long currentBits = limit.get();
+            double current = Double.longBitsToDouble(currentBits);
+            double next;
+            if (dropped) {
+                next = Math.max(minLimit, current * BACKOFF_RATIO);
+            } else if (inFlightAtEnd < current / 2) {
+                // Under light load the limit says nothing about capacity, so don't let it drift upwards
+                return;
+            } else {
+                double gradient = Math.max(0.5, Math.min(1.0, tolerance * baseline / rttNanos));
+                double target = current * gradient + Math.sqrt(current);
+                next = Math.max(minLimit, Math.min(maxLimit, current * (1 - SMOOTHING) + target * SMOOTHING));
+            }
+            if (limit.compareAndSet(currentBits, Double.doubleToRawLongBits(next))) {
+                return;
+            }
+        }
+    }
+
+    private double updateBaseline(long rttNanos) {
+        while (true) {
+            long currentBits = baselineRttNanos.get();
+            double current = Double.longBitsToDouble(currentBits);
+            double next = current == 0 ? rttNanos : current + (rttNanos - current) / BASELINE_WINDOW;
+            if (baselineRttNanos.compareAndSet(currentBits, Double.doubleToRawLongBits(next))) {
+                return next;
+            }
+        }
+    }
+
+    public int getLimit() {
+        return (int) Double.longBitsToDouble(limit.get());
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+}
@@ -0,0 +1,80 @@
+package com.klm.weather.limit;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.function.Predicate;
+
+/**
+ * Rejects requests right away when their {@link EndpointClass} has no room, instead of letting
+ * them queue for a database connection. Runs in the security filter chain before authentication,
+ * so shed requests do not pay for a password check either; the per-user caps are applied after
+ * authentication by {@link UserConcurrencyLimitFilter}.
+ * <p>
+ * Requests another cluster node sends while serving a client carry that client's credentials, but
+ * the client already holds a slot on the coordinating node. They are admitted against their own
+ * {@link EndpointClass#SHARD} budget and skip the per-user cap, so one fanned-out client request
+ * is not charged several times.
+ */
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    private final ConcurrencyLimiter limiter;
+    private final int retryAfterSeconds;
+    private final Predicate<HttpServletRequest> shardRequest;
+
+    /**
+     * @param shardRequest whether a request was sent by another cluster node, with a valid shard header
+     */
+    public ConcurrencyLimitFilter(ConcurrencyLimiter limiter, int retryAfterSeconds,
+                                  Predicate<HttpServletRequest> shardRequest) {
+        this.limiter = limiter;
+        this.retryAfterSeconds = retryAfterSeconds;
+        this.shardRequest = shardRequest;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !limiter.isEnabled() || EndpointClass.of(request) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        EndpointClass endpoint = shardRequest.test(request) ? EndpointClass.SHARD : EndpointClass.of(request);
+        if (!limiter.tryAcquire(endpoint)) {
+            reject(response, HttpStatus.SERVICE_UNAVAILABLE, "Service is overloaded, please retry later.", retryAfterSeconds);
+            return;
+        }
+        long start = System.nanoTime();
+        boolean completed = false;
+        try {
+            filterChain.doFilter(request, response);
+            completed = true;
+        } finally {
+            if (completed && response.getStatus() == HttpStatus.TOO_MANY_REQUESTS.value()) {
+                // Turned away by the user's cap; its latency says nothing about the endpoint
+                limiter.cancel(endpoint);
+            } else {
+                // Server errors (e.g. connection pool timeouts) count as overload signals
+                limiter.release(endpoint, System.nanoTime() - start, !completed || response.getStatus() >= 500);
+            }
+        }
+    }
+
+    static void reject(HttpServletResponse response, HttpStatus status, String message, int retryAfterSeconds)
+            throws IOException {
+        response.setStatus(status.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Integer.toString(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.getWriter().write("{\"timestamp\":\"" + LocalDateTime.now() + "\",\"status\":" + status.value()
+                + ",\"error\":\"" + status.getReasonPhrase() + "\",\"message\":\"" + message + "\"}");
+    }
+}
@@ -0,0 +1,119 @@
+package com.klm.weather.limit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Admission control in front of the weather endpoints.
+ * <p>
+ * Each {@link EndpointClass} has its own {@link AdaptiveConcurrencyLimit}, and each authenticated
+ * user has a fixed cap on in-flight requests. The endpoint limits are checked before
+ * authentication (see {@link ConcurrencyLimitFilter}), the user caps once the caller is known
+ * (see {@link UserConcurrencyLimitFilter}). The users and their caps come from the same
+ * {@code app.security.*} properties that {@code UserConfig} builds the accounts from; other
+ * users get {@code app.limits.default-user-max-in-flight}.
+ * <p>
+ * State is published as {@code weather.limiter.*} metrics.
+ */
+@Component
+public class ConcurrencyLimiter {
+
+    private final boolean enabled;
+    private final int defaultUserMaxInFlight;
+    private final Map<EndpointClass, AdaptiveConcurrencyLimit> limits = new EnumMap<>(EndpointClass.class);
+    private final Map<String, Integer> userMaxInFlight = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> userInFlight = new ConcurrentHashMap<>();
+    private final Map<EndpointClass, Counter> endpointRejections = new EnumMap<>(EndpointClass.class);
+    private final Map<EndpointClass, Counter> userRejections = new EnumMap<>(EndpointClass.class);
+    private final MeterRegistry meterRegistry;
+
+    public ConcurrencyLimiter(MeterRegistry meterRegistry,
+                              @Value("${app.limits.enabled:true}") boolean enabled,
+                              @Value("${app.limits.initial-limit:20}") int initialLimit,
+                              @Value("${app.limits.min-limit:2}") int minLimit,
+                              @Value("${app.limits.max-limit:200}") int maxLimit,
+                              @Value("${app.limits.latency-tolerance:2.0}") double tolerance,
+                              @Value("${app.limits.default-user-max-in-flight:20}") int defaultUserMaxInFlight,
+                              @Value("${app.security.admin.username}") String adminUsername,
+                              @Value("${app.security.admin.max-in-flight:${app.limits.default-user-max-in-flight:20}}") int adminMaxInFlight,
+                              @Value("${app.security.user.username}") String userUsername,
+                              @Value("${app.security.user.max-in-flight:${app.limits.default-user-max-in-flight:20}}") int userMaxInFlightLimit) {
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.defaultUserMaxInFlight = defaultUserMaxInFlight;
+        this.userMaxInFlight.put(adminUsername, adminMaxInFlight);
+        this.userMaxInFlight.put(userUsername, userMaxInFlightLimit);
+        for (EndpointClass endpoint : EndpointClass.values()) {
+            AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(initialLimit, minLimit, maxLimit, tolerance);
+            limits.put(endpoint, limit);
+            String tag = endpoint.name().toLowerCase();
+            Gauge.builder("weather.limiter.limit", limit, AdaptiveConcurrencyLimit::getLimit)
+                    .tag("endpoint", tag).register(meterRegistry);
+            Gauge.builder("weather.limiter.in_flight", limit, AdaptiveConcurrencyLimit::getInFlight)
+                    .tag("endpoint", tag).register(meterRegistry);
+            endpointRejections.put(endpoint, Counter.builder("weather.limiter.rejected")
+                    .tag("endpoint", tag).tag("reason", "endpoint").register(meterRegistry));
+            userRejections.put(endpoint, Counter.builder("weather.limiter.rejected")
+                    .tag("endpoint", tag).tag("reason", "user").register(meterRegistry));
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Takes a slot for the given endpoint class. An accepted request must be released with
+     * {@link #release} or {@link #cancel}.
+     */
+    public boolean tryAcquire(EndpointClass endpoint) {
+        if (!limits.get(endpoint).tryAcquire()) {
+            endpointRejections.get(endpoint).increment();
+            return false;
+        }
+        return true;
+    }
+
+    public void release(EndpointClass endpoint, long rttNanos, boolean dropped) {
+        limits.get(endpoint).release(rttNanos, dropped);
+    }
+
+    // For requests that were rejected further down the chain and did no work
+    public void cancel(EndpointClass endpoint) {
+        limits.get(endpoint).cancel();
+    }
+
+    /**
+     * Takes one of the user's slots. An accepted request must be released with {@link #releaseUser}.
+     */
+    public boolean tryAcquireUser(EndpointClass endpoint, String user) {
+        AtomicInteger perUser = userCounter(user);
+        if (perUser.incrementAndGet() > userMaxInFlight.getOrDefault(user, defaultUserMaxInFlight)) {
+            perUser.decrementAndGet();
+            userRejections.get(endpoint).increment();
+            return false;
+        }
+        return true;
+    }
+
+    public void releaseUser(String user) {
+        userCounter(user).decrementAndGet();
+    }
+
+    private AtomicInteger userCounter(String user) {
+        return userInFlight.computeIfAbsent(user, name -> {
+            AtomicInteger counter = new AtomicInteger();
+            Gauge.builder("weather.limiter.user.in_flight", counter, AtomicInteger::get)
+                    .tag("user", name).register(meterRegistry);
+            return counter;
+        });
+    }
+}
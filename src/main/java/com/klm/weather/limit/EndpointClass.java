@@ -0,0 +1,42 @@
+package com.klm.weather.limit;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * Groups of endpoints that get their own concurrency budget, so a burst of expensive list
+ * queries cannot starve cheap lookups or writes.
+ */
+public enum EndpointClass {
+    // GET /weather, GET /weather/top and POST /weather/_mget: wide, potentially unfiltered queries
+    LIST,
+    // GET /weather/{id}: single row lookups
+    ITEM,
+    // POST /weather
+    WRITE,
+    // Any of the above sent by another cluster node on behalf of a client, see ConcurrencyLimitFilter
+    SHARD;
+
+    /**
+     * @return the class of the given client request, or {@code null} when it is not limited
+     */
+    public static EndpointClass of(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        if (path.endsWith("/")) {
+            path = path.substring(0, path.length() - 1);
+        }
+        if (!path.equals("/weather") && !path.startsWith("/weather/")) {
+            return null;
+        }
+        boolean collection = path.equals("/weather");
+        if ("POST".equals(request.getMethod())) {
+            if (path.equals("/weather/_mget")) {
+                return LIST;
+            }
+            return collection ? WRITE : null;
+        }
+        if (!"GET".equals(request.getMethod()) || path.equals("/weather/stream")) {
+            return null;  // The event stream is long-lived and not bounded by database work
+        }
+        return collection || path.equals("/weather/top") ? LIST : ITEM;
+    }
+}
@@ -0,0 +1,69 @@
+package com.klm.weather.limit;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.function.Predicate;
+
+/**
+ * Applies the per-user caps of {@link ConcurrencyLimiter} once the caller is authenticated.
+ * The endpoint limits have already been checked by {@link ConcurrencyLimitFilter}; requests from
+ * other cluster nodes are not charged to the client they act for.
+ */
+public class UserConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    private final ConcurrencyLimiter limiter;
+    private final int retryAfterSeconds;
+    private final Predicate<HttpServletRequest> shardRequest;
+
+    /**
+     * @param shardRequest whether a request was sent by another cluster node, with a valid shard header
+     */
+    public UserConcurrencyLimitFilter(ConcurrencyLimiter limiter, int retryAfterSeconds,
+                                      Predicate<HttpServletRequest> shardRequest) {
+        this.limiter = limiter;
+        this.retryAfterSeconds = retryAfterSeconds;
+        this.shardRequest = shardRequest;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !limiter.isEnabled() || EndpointClass.of(request) == null || shardRequest.test(request);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String user = currentUser();
+        if (user == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        if (!limiter.tryAcquireUser(EndpointClass.of(request), user)) {
+            ConcurrencyLimitFilter.reject(response, HttpStatus.TOO_MANY_REQUESTS,
+                    "Too many concurrent requests for this user.", retryAfterSeconds);
+            return;
+        }
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            limiter.releaseUser(user);
+        }
+    }
+
+    private static String currentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || authentication instanceof AnonymousAuthenticationToken) {
+            return null;
+        }
+        return authentication.getName();
+    }
+}
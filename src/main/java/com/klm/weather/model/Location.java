@@ -0,0 +1,54 @@
+package com.klm.weather.model;
+
+import jakarta.persistence.*;
+
+/**
+ * Interned city/state pair. Weather rows reference it by id instead of repeating the strings.
+ */
+@Entity
+@Table(uniqueConstraints = @UniqueConstraint(columnNames = {"city", "state"}),
+        indexes = {
+                @Index(columnList = "city_key"),
+                @Index(columnList = "state_key")
+        })
+public class Location {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Integer id;
+
+    @Column(nullable = false)
+    private String city;
+
+    @Column(nullable = false)
+    private String state;
+
+    // Lower-cased copies of city and state, so case-insensitive lookups can use an index
+    @Column(name = "city_key")
+    private String cityKey;
+
+    @Column(name = "state_key")
+    private String stateKey;
+
+    public Location(String city, String state) {
+        this.city = city;
+        this.state = state;
+        this.cityKey = city.toLowerCase();
+        this.stateKey = state.toLowerCase();
+    }
+
+    public Location() {
+    }
+
+    public Integer getId() {
+        return id;
+    }
+
+    public String getCity() {
+        return city;
+    }
+
+    public String getState() {
+        return state;
+    }
+}
@@ -0,0 +1,34 @@
+package com.klm.weather.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+// One entry of a top-N response: the value the record was ranked by and the record itself
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class RankedWeather {
+    private Double value;
+    private WeatherDTO weather;
+
+    public RankedWeather(Double value, WeatherDTO weather) {
+        this.value = value;
+        this.weather = weather;
+    }
+
+    // Default Constructor
+    public RankedWeather() {}
+
+    public Double getValue() {
+        return value;
+    }
+
+    public WeatherDTO getWeather() {
+        return weather;
+    }
+
+    public void setValue(Double value) {
+        this.value = value;
+    }
+
+    public void setWeather(WeatherDTO weather) {
+        this.weather = weather;
+    }
+}
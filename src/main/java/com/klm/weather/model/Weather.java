@@ -1,11 +1,19 @@
 package com.klm.weather.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 
 import java.util.Date;
 import java.util.List;
 
 @Entity
+@Table(indexes = {
+        @Index(columnList = "location_id"),
+        @Index(columnList = "max_temperature"),
+        @Index(columnList = "min_temperature"),
+        @Index(columnList = "mean_temperature"),
+        @Index(columnList = "temperature_count")
+})
 public class Weather {
 
     @Id
@@ -16,9 +24,28 @@ public class Weather {
     private Date date;
     private Float lat;
     private Float lon;
+    // City and state are stored once in the Location table and referenced by id
+    @Column(name = "location_id")
+    private Integer locationId;
+    @Transient
     private String city;
+    @Transient
     private String state;
     private List<Double> temperatures;
+    // Precomputed from temperatures on insert, so top-N queries can order by an index
+    @JsonIgnore
+    @Column(name = "max_temperature")
+    private Double maxTemperature;
+    @JsonIgnore
+    @Column(name = "min_temperature")
+    private Double minTemperature;
+    @JsonIgnore
+    @Column(name = "mean_temperature")
+    private Double meanTemperature;
+    // Non-null temperatures the statistics were computed from; null until they have been computed
+    @JsonIgnore
+    @Column(name = "temperature_count")
+    private Integer temperatureCount;
 
     public Weather(Integer id, Date date, Float lat, Float lon, String city, String state, List<Double> temperatures) {
         this.id = id;
@@ -74,6 +101,14 @@ public class Weather {
         this.lon = lon;
     }
 
+    public Integer getLocationId() {
+        return locationId;
+    }
+
+    public void setLocationId(Integer locationId) {
+        this.locationId = locationId;
+    }
+
     public String getCity() {
         return city;
     }
@@ -97,4 +132,36 @@ public class Weather {
     public void setTemperatures(List<Double> temperatures) {
         this.temperatures = temperatures;
     }
+
+    public Double getMaxTemperature() {
+        return maxTemperature;
+    }
+
+    public void setMaxTemperature(Double maxTemperature) {
+        this.maxTemperature = maxTemperature;
+    }
+
+    public Double getMinTemperature() {
+        return minTemperature;
+    }
+
+    public void setMinTemperature(Double minTemperature) {
+        this.minTemperature = minTemperature;
+    }
+
+    public Double getMeanTemperature() {
+        return meanTemperature;
+    }
+
+    public void setMeanTemperature(Double meanTemperature) {
+        this.meanTemperature = meanTemperature;
+    }
+
+    public Integer getTemperatureCount() {
+        return temperatureCount;
+    }
+
+    public void setTemperatureCount(Integer temperatureCount) {
+        this.temperatureCount = temperatureCount;
+    }
 }
@@ -1,11 +1,17 @@
 package com.klm.weather.model;
 
+import com.fasterxml.jackson.annotation.JsonFilter;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 
+// Responses to a fields=... projection only serialize the requested fields, see WeatherFieldsAdvice
+@JsonFilter(WeatherDTO.FIELDS_FILTER)
 public class WeatherDTO {
+    public static final String FIELDS_FILTER = "weatherFields";
+
     private Integer id;
     @NotNull(message = "Date cannot be null")
     private Date date;
@@ -42,6 +48,12 @@ public class WeatherDTO {
         this.temperatures = temperatures;
     }
 
+    // Copy constructor, the date and temperatures are copied as well since both are mutable
+    public WeatherDTO(WeatherDTO other) {
+        this(other.id, other.date == null ? null : new Date(other.date.getTime()), other.lat, other.lon,
+                other.city, other.state, other.temperatures == null ? null : new ArrayList<>(other.temperatures));
+    }
+
     // Default Constructor
     public WeatherDTO() {}
 
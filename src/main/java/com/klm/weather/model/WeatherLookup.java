@@ -0,0 +1,44 @@
+package com.klm.weather.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+// One entry of a multi-get response: the requested id, whether it exists and, if so, the record
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class WeatherLookup {
+    private Integer id;
+    private boolean found;
+    private WeatherDTO weather;
+
+    public WeatherLookup(Integer id, WeatherDTO weather) {
+        this.id = id;
+        this.found = weather != null;
+        this.weather = weather;
+    }
+
+    // Default Constructor
+    public WeatherLookup() {}
+
+    public Integer getId() {
+        return id;
+    }
+
+    public boolean isFound() {
+        return found;
+    }
+
+    public WeatherDTO getWeather() {
+        return weather;
+    }
+
+    public void setId(Integer id) {
+        this.id = id;
+    }
+
+    public void setFound(boolean found) {
+        this.found = found;
+    }
+
+    public void setWeather(WeatherDTO weather) {
+        this.weather = weather;
+    }
+}
@@ -0,0 +1,27 @@
+package com.klm.weather.model;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+
+import java.util.List;
+
+// Body of POST /weather/_mget
+public class WeatherMultiGetRequest {
+    @NotEmpty(message = "At least one id is required")
+    private List<@NotNull(message = "Ids cannot be null") Integer> ids;
+
+    public WeatherMultiGetRequest(List<Integer> ids) {
+        this.ids = ids;
+    }
+
+    // Default Constructor
+    public WeatherMultiGetRequest() {}
+
+    public List<Integer> getIds() {
+        return ids;
+    }
+
+    public void setIds(List<Integer> ids) {
+        this.ids = ids;
+    }
+}
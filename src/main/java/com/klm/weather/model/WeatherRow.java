@@ -0,0 +1,87 @@
+package com.klm.weather.model;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Read-only projection of a {@link Weather} row, filled by constructor queries in
+ * {@code WeatherRepository} so list and lookup paths never materialize managed entities.
+ * City and state are only referenced through {@code locationId}, see {@code LocationDictionary}.
+ * {@code temperatures} and the precomputed temperature statistics are {@code null} when the
+ * query did not select them.
+ */
+public class WeatherRow {
+    private final Integer id;
+    private final Date date;
+    private final Float lat;
+    private final Float lon;
+    private final Integer locationId;
+    private final List<Double> temperatures;
+    private final Double maxTemperature;
+    private final Double minTemperature;
+    private final Double meanTemperature;
+
+    // Constructor used by queries that skip the temperatures column
+    public WeatherRow(Integer id, Date date, Float lat, Float lon, Integer locationId) {
+        this(id, date, lat, lon, locationId, null);
+    }
+
+    public WeatherRow(Integer id, Date date, Float lat, Float lon, Integer locationId, List<Double> temperatures) {
+        this(id, date, lat, lon, locationId, temperatures, null, null, null);
+    }
+
+    // Constructor used by top-N queries that skip the temperatures column
+    public WeatherRow(Integer id, Date date, Float lat, Float lon, Integer locationId,
+                      Double maxTemperature, Double minTemperature, Double meanTemperature) {
+        this(id, date, lat, lon, locationId, null, maxTemperature, minTemperature, meanTemperature);
+    }
+
+    public WeatherRow(Integer id, Date date, Float lat, Float lon, Integer locationId, List<Double> temperatures,
+                      Double maxTemperature, Double minTemperature, Double meanTemperature) {
+        this.id = id;
+        this.date = date;
+        this.lat = lat;
+        this.lon = lon;
+        this.locationId = locationId;
+        this.temperatures = temperatures;
+        this.maxTemperature = maxTemperature;
+        this.minTemperature = minTemperature;
+        this.meanTemperature = meanTemperature;
+    }
+
+    public Integer getId() {
+        return id;
+    }
+
+    public Date getDate() {
+        return date;
+    }
+
+    public Float getLat() {
+        return lat;
+    }
+
+    public Float getLon() {
+        return lon;
+    }
+
+    public Integer getLocationId() {
+        return locationId;
+    }
+
+    public List<Double> getTemperatures() {
+        return temperatures;
+    }
+
+    public Double getMaxTemperature() {
+        return maxTemperature;
+    }
+
+    public Double getMinTemperature() {
+        return minTemperature;
+    }
+
+    public Double getMeanTemperature() {
+        return meanTemperature;
+    }
+}
@@ -0,0 +1,29 @@
+package com.klm.weather.repository;
+
+import com.klm.weather.model.Location;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface LocationRepository extends JpaRepository<Location, Integer> {
+
+    Optional<Location> findByCityAndState(String city, String state);
+
+    // Both take lower-cased names and use the indexed key columns
+    List<Location> findByCityKey(String cityKey);
+
+    List<Location> findByStateKey(String stateKey);
+
+    // Rows written before the key columns existed
+    @Transactional
+    @Modifying
+    @Query("UPDATE Location l SET l.cityKey = LOWER(l.city), l.stateKey = LOWER(l.state) " +
+            "WHERE l.cityKey IS NULL OR l.stateKey IS NULL")
+    int fillMissingKeys();
+}
@@ -1,23 +1,96 @@
 package com.klm.weather.repository;
 
 import com.klm.weather.model.Weather;
+import com.klm.weather.model.WeatherRow;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface WeatherRepository extends JpaRepository<Weather, Integer> {
 
-    @Query("SELECT w FROM Weather w " +
-            "WHERE (:date IS NULL OR w.date IS NULL OR w.date = :date) " +
-            "AND (:cities IS NULL OR LOWER(w.city) IN (:cities))")
-    Page<Weather> findWeatherRecords(@Param("date") Date date,
-                                     @Param("cities") List<String> cities,
-                                     Pageable pageable);
-}
+    // Records without a date match every date filter
+    String DATE_FILTER = "(:date IS NULL OR w.date IS NULL OR w.date = :date)";
+
+    String WEATHER_FILTER = "WHERE " + DATE_FILTER + " " +
+            "AND (:locationIds IS NULL OR w.locationId IN (:locationIds))";
+
+    // Filter of top-N queries: an exact date or an inclusive date range, and locations
+    String RANGE_FILTER = "WHERE " + DATE_FILTER + " " +
+            "AND (:from IS NULL OR w.date IS NULL OR w.date >= :from) AND (:to IS NULL OR w.date IS NULL OR w.date <= :to) " +
+            "AND (:locationIds IS NULL OR w.locationId IN (:locationIds))";
+
+    // Full rows, including the hourly temperatures
+    @Query(value = "SELECT new com.klm.weather.model.WeatherRow(w.id, w.date, w.lat, w.lon, w.locationId, w.temperatures) " +
+            "FROM Weather w " + WEATHER_FILTER,
+            countQuery = "SELECT COUNT(w) FROM Weather w " + WEATHER_FILTER)
+    Page<WeatherRow> findWeatherRecords(@Param("date") Date date,
+                                        @Param("locationIds") List<Integer> locationIds,
+                                        Pageable pageable);
+
+    // Same filter, but the temperatures column is never read
+    @Query(value = "SELECT new com.klm.weather.model.WeatherRow(w.id, w.date, w.lat, w.lon, w.locationId) " +
+            "FROM Weather w " + WEATHER_FILTER,
+            countQuery = "SELECT COUNT(w) FROM Weather w " + WEATHER_FILTER)
+    Page<WeatherRow> findWeatherSummaries(@Param("date") Date date,
+                                          @Param("locationIds") List<Integer> locationIds,
+                                          Pageable pageable);
+
+    @Query("SELECT new com.klm.weather.model.WeatherRow(w.id, w.date, w.lat, w.lon, w.locationId, w.temperatures) " +
+            "FROM Weather w WHERE w.id = :id")
+    Optional<WeatherRow> findRowById(@Param("id") Integer id);
+
+    @Query("SELECT new com.klm.weather.model.WeatherRow(w.id, w.date, w.lat, w.lon, w.locationId) " +
+            "FROM Weather w WHERE w.id = :id")
+    Optional<WeatherRow> findSummaryById(@Param("id") Integer id);
+
+    @Query("SELECT new com.klm.weather.model.WeatherRow(w.id, w.date, w.lat, w.lon, w.locationId, w.temperatures) " +
+            "FROM Weather w WHERE w.id IN (:ids)")
+    List<WeatherRow> findRowsByIdIn(@Param("ids") Collection<Integer> ids);
 
+    @Query("SELECT new com.klm.weather.model.WeatherRow(w.id, w.date, w.lat, w.lon, w.locationId) " +
+            "FROM Weather w WHERE w.id IN (:ids)")
+    List<WeatherRow> findSummariesByIdIn(@Param("ids") Collection<Integer> ids);
+
+    // Keyset pagination over all rows, used to build in-memory indexes
+    @Query("SELECT new com.klm.weather.model.WeatherRow(w.id, w.date, w.lat, w.lon, w.locationId) " +
+            "FROM Weather w WHERE w.id > :afterId ORDER BY w.id")
+    List<WeatherRow> findSummariesAfter(@Param("afterId") int afterId, Pageable pageable);
+
+    // Ids are generated in ascending order, so rows inserted since an id was seen all sort above it
+    @Query("SELECT COALESCE(MAX(w.id), 0) FROM Weather w")
+    int findMaxId();
+
+    long countByIdLessThanEqual(Integer id);
+
+    // Ordered by a precomputed temperature column through the pageable's sort, so an index can serve the order
+    @Query("SELECT new com.klm.weather.model.WeatherRow(w.id, w.date, w.lat, w.lon, w.locationId, w.temperatures, " +
+            "w.maxTemperature, w.minTemperature, w.meanTemperature) " +
+            "FROM Weather w " + RANGE_FILTER + " AND w.maxTemperature IS NOT NULL")
+    List<WeatherRow> findTopRecords(@Param("date") Date date, @Param("from") Date from, @Param("to") Date to,
+                                    @Param("locationIds") List<Integer> locationIds, Pageable pageable);
+
+    @Query("SELECT new com.klm.weather.model.WeatherRow(w.id, w.date, w.lat, w.lon, w.locationId, " +
+            "w.maxTemperature, w.minTemperature, w.meanTemperature) " +
+            "FROM Weather w " + RANGE_FILTER + " AND w.maxTemperature IS NOT NULL")
+    List<WeatherRow> findTopSummaries(@Param("date") Date date, @Param("from") Date from, @Param("to") Date to,
+                                      @Param("locationIds") List<Integer> locationIds, Pageable pageable);
+
+    // Keyset pagination over the filtered rows, for metrics that cannot be precomputed
+    @Query("SELECT new com.klm.weather.model.WeatherRow(w.id, w.date, w.lat, w.lon, w.locationId, w.temperatures) " +
+            "FROM Weather w " + RANGE_FILTER + " AND w.id > :afterId ORDER BY w.id")
+    List<WeatherRow> findRecordsAfter(@Param("afterId") int afterId, @Param("date") Date date, @Param("from") Date from,
+                                      @Param("to") Date to, @Param("locationIds") List<Integer> locationIds,
+                                      Pageable pageable);
+
+    // Rows written without the temperature statistics, e.g. before the columns existed
+    @Query("SELECT w FROM Weather w WHERE w.id > :afterId AND w.temperatureCount IS NULL ORDER BY w.id")
+    List<Weather> findMissingTemperatureStats(@Param("afterId") int afterId, Pageable pageable);
+}
@@ -1,5 +1,13 @@
 package com.klm.weather.security;
 
+import com.klm.weather.cluster.WeatherClusterService;
+import com.klm.weather.limit.ConcurrencyLimitFilter;
+import com.klm.weather.limit.ConcurrencyLimiter;
+import com.klm.weather.limit.UserConcurrencyLimitFilter;
+import com.klm.weather.tracing.AuthTimingFilter;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.Customizer;
@@ -8,19 +16,35 @@ import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.access.intercept.AuthorizationFilter;
+import org.springframework.security.web.authentication.www.BasicAuthenticationFilter;
+
+import java.util.function.Predicate;
 
 @Configuration
 @EnableMethodSecurity
 public class SecurityConfig {
 
     @Bean
-    public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain securityFilterChain(HttpSecurity http, ConcurrencyLimiter concurrencyLimiter,
+                                                   ObjectProvider<WeatherClusterService> weatherClusterService,
+                                                   @Value("${app.limits.retry-after-seconds:1}") int retryAfterSeconds) throws Exception {
+        // Only present in cluster mode; looked up per request so the chain does not depend on its startup
+        Predicate<HttpServletRequest> shardRequest = request -> {
+            WeatherClusterService cluster = weatherClusterService.getIfAvailable();
+            return cluster != null && cluster.isShardLocalRequest(request);
+        };
         http
                 .csrf(csrf -> csrf.disable()) // Disable CSRF
                 .authorizeHttpRequests(auth -> auth
                         .anyRequest().authenticated() // Secure all other endpoints
                 )
-                .httpBasic(Customizer.withDefaults()) ;// Enable HTTP Basic Authentication
+                .httpBasic(Customizer.withDefaults()) // Enable HTTP Basic Authentication
+                // Shed load before paying for the password check, and before any database work starts
+                .addFilterBefore(new ConcurrencyLimitFilter(concurrencyLimiter, retryAfterSeconds, shardRequest), BasicAuthenticationFilter.class)
+                .addFilterAfter(new AuthTimingFilter(), AuthorizationFilter.class)
+                // Per-user caps need the caller, so they can only apply once authenticated
+                .addFilterAfter(new UserConcurrencyLimitFilter(concurrencyLimiter, retryAfterSeconds, shardRequest), AuthorizationFilter.class);
         return http.build();
     }
 
@@ -0,0 +1,52 @@
+package com.klm.weather.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.stream.Collector;
+
+/**
+ * Keeps the first {@code capacity} elements by a ranking seen so far, in O(capacity) memory.
+ * The worst kept element sits at the head of the heap, so a candidate only needs to beat it.
+ * Not thread-safe: parallel streams give every thread its own heap and {@link #merge} them.
+ */
+class BoundedHeap<T> {
+
+    private final int capacity;
+    private final Comparator<T> ranking;
+    private final PriorityQueue<T> heap;
+
+    BoundedHeap(int capacity, Comparator<T> ranking) {
+        this.capacity = capacity;
+        this.ranking = ranking;
+        this.heap = new PriorityQueue<>(Math.min(capacity, 1024) + 1, ranking.reversed());
+    }
+
+    static <T> Collector<T, BoundedHeap<T>, BoundedHeap<T>> collector(int capacity, Comparator<T> ranking) {
+        return Collector.of(() -> new BoundedHeap<>(capacity, ranking), BoundedHeap::offer, BoundedHeap::merge);
+    }
+
+    void offer(T candidate) {
+        if (heap.size() < capacity) {
+            heap.add(candidate);
+        } else if (ranking.compare(candidate, heap.peek()) < 0) {
+            heap.poll();
+            heap.add(candidate);
+        }
+    }
+
+    BoundedHeap<T> merge(BoundedHeap<T> other) {
+        other.heap.forEach(this::offer);
+        return this;
+    }
+
+    /**
+     * @return the kept elements, best first
+     */
+    List<T> toSortedList() {
+        List<T> sorted = new ArrayList<>(heap);
+        sorted.sort(ranking);
+        return sorted;
+    }
+}
@@ -0,0 +1,157 @@
+package com.klm.weather.service;
+
+import com.klm.weather.model.Location;
+import com.klm.weather.repository.LocationRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory bidirectional map between {@link Location} ids and city/state names.
+ * <p>
+ * The table is small and append-only, so it is loaded once on startup and then only grows.
+ * Filters resolve case-insensitive city names to location ids here, so the database compares
+ * integers, and DTOs get their names back from here without a join. Locations created by other
+ * processes sharing the database are picked up from the table on a miss.
+ */
+@Component
+public class LocationDictionary {
+
+    private final LocationRepository locationRepository;
+    private final Map<Integer, Location> byId = new ConcurrentHashMap<>();
+    private final Map<String, Location> byName = new ConcurrentHashMap<>();
+    private final Map<String, Set<Integer>> idsByCity = new ConcurrentHashMap<>();
+    private final Map<String, Set<Integer>> idsByState = new ConcurrentHashMap<>();
+
+    public LocationDictionary(LocationRepository locationRepository) {
+        this.locationRepository = locationRepository;
+    }
+
+    @PostConstruct
+    public void load() {
+        locationRepository.fillMissingKeys();
+        locationRepository.findAll().forEach(this::register);
+    }
+
+    /**
+     * @return the id of the given city/state pair, creating the location on first use
+     * @throws IllegalStateException when called inside a transaction; resolve locations before
+     *                               opening one, so a new location never needs a second connection
+     */
+    public Integer resolve(String city, String state) {
+        Location location = byName.get(nameKey(city, state));
+        if (location != null) {
+            return location.getId();
+        }
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("Locations must be resolved outside of a transaction");
+        }
+        location = locationRepository.findByCityAndState(city, state).orElse(null);
+        if (location == null) {
+            try {
+                location = locationRepository.save(new Location(city, state));
+            } catch (DataIntegrityViolationException e) {
+                // Another thread or instance inserted the same location first
+                location = locationRepository.findByCityAndState(city, state).orElseThrow(() -> e);
+            }
+        }
+        register(location);
+        return location.getId();
+    }
+
+    /**
+     * @return the location with the given id, or {@code null} when it does not exist
+     */
+    public Location get(Integer id) {
+        if (id == null) {
+            return null;
+        }
+        Location location = byId.get(id);
+        if (location == null) {
+            // Created by another instance after this one loaded the dictionary
+            location = locationRepository.findById(id).orElse(null);
+            if (location != null) {
+                register(location);
+            }
+        }
+        return location;
+    }
+
+    /**
+     * @param cities lower-cased city names
+     * @return the ids of every location in one of the given cities
+     */
+    public List<Integer> idsForCities(Collection<String> cities) {
+        List<Integer> ids = new ArrayList<>();
+        for (String city : cities) {
+            Set<Integer> known = idsByCity.get(city);
+            if (known == null) {
+                // Unknown here, but another process may have created it; misses cost one lookup on the city_key index
+                locationRepository.findByCityKey(city).forEach(this::register);
+                known = idsByCity.getOrDefault(city, Set.of());
+            }
+            ids.addAll(known);
+        }
+        return ids;
+    }
+
+    /**
+     * @param states lower-cased state names
+     * @return the ids of every location in one of the given states
+     */
+    public List<Integer> idsForStates(Collection<String> states) {
+        List<Integer> ids = new ArrayList<>();
+        for (String state : states) {
+            Set<Integer> known = idsByState.get(state);
+            if (known == null) {
+                locationRepository.findByStateKey(state).forEach(this::register);
+                known = idsByState.getOrDefault(state, Set.of());
+            }
+            ids.addAll(known);
+        }
+        return ids;
+    }
+
+    /**
+     * @param cities lower-cased city names, may be empty
+     * @param states lower-cased state names, may be empty
+     * @return the ids of locations matching both filters, or {@code null} when neither is given
+     */
+    public List<Integer> idsFor(List<String> cities, List<String> states) {
+        List<Integer> ids = null;
+        if (cities != null && !cities.isEmpty()) {
+            ids = idsForCities(cities);
+        }
+        if (states != null && !states.isEmpty()) {
+            List<Integer> inStates = idsForStates(states);
+            if (ids == null) {
+                ids = inStates;
+            } else {
+                Set<Integer> stateIds = new HashSet<>(inStates);
+                ids = ids.stream().filter(stateIds::contains).collect(Collectors.toList());
+            }
+        }
+        return ids;
+    }
+
+    private void register(Location location) {
+        byId.put(location.getId(), location);
+        byName.put(nameKey(location.getCity(), location.getState()), location);
+        idsByCity.computeIfAbsent(location.getCity().toLowerCase(), k -> ConcurrentHashMap.newKeySet()).add(location.getId());
+        idsByState.computeIfAbsent(location.getState().toLowerCase(), k -> ConcurrentHashMap.newKeySet()).add(location.getId());
+    }
+
+    private static String nameKey(String city, String state) {
+        return city + '\u0000' + state;
+    }
+}
@@ -0,0 +1,86 @@
+package com.klm.weather.service;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * Coalesces identical concurrent calls: the first caller for a key runs the call on its own
+ * thread, callers arriving while it is in flight wait for and share its result. The entry is
+ * removed before the result is published, so nobody joins a call that has already completed.
+ * Joining callers get a copy of the result made by the given copier, so callers that modify what
+ * they got back never affect each other.
+ */
+public class SingleFlight<K, V> {
+
+    private final Map<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final long timeoutMs;
+    private final UnaryOperator<V> copier;
+
+    /**
+     * @param timeoutMs how long a joining caller waits for the shared result before giving up
+     */
+    public SingleFlight(long timeoutMs) {
+        this(timeoutMs, UnaryOperator.identity());
+    }
+
+    /**
+     * @param timeoutMs how long a joining caller waits for the shared result before giving up
+     * @param copier    makes each joining caller's own copy of a shared result
+     */
+    public SingleFlight(long timeoutMs, UnaryOperator<V> copier) {
+        this.timeoutMs = timeoutMs;
+        this.copier = copier;
+    }
+
+    public V execute(K key, Supplier<V> call) {
+        CompletableFuture<V> own = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, own);
+        if (existing != null) {
+            return copier.apply(await(existing));
+        }
+        V result;
+        try {
+            result = call.get();
+        } catch (RuntimeException | Error e) {
+            inFlight.remove(key, own);
+            own.completeExceptionally(e);
+            throw e;
+        }
+        inFlight.remove(key, own);
+        own.complete(result);
+        return result;
+    }
+
+    public int inFlightCount() {
+        return inFlight.size();
+    }
+
+    private V await(CompletableFuture<V> shared) {
+        try {
+            return shared.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Timed out waiting for an identical in-flight request");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Interrupted while waiting for an identical in-flight request");
+        } catch (ExecutionException e) {
+            // Callers sharing a call also share its failure, e.g. a 400 for an invalid filter
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+}
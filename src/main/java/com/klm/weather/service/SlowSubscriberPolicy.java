@@ -0,0 +1,11 @@
+package com.klm.weather.service;
+
+/**
+ * What to do with a stream subscriber that falls further behind than the ring buffer can hold.
+ */
+public enum SlowSubscriberPolicy {
+    // Skip the overwritten records, tell the client how many were lost and keep streaming
+    DROP,
+    // Close the stream so the client can reconnect (optionally with Last-Event-ID)
+    DISCONNECT
+}
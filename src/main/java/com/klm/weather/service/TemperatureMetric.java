@@ -0,0 +1,96 @@
+package com.klm.weather.service;
+
+import com.klm.weather.model.Weather;
+import com.klm.weather.model.WeatherRow;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * Per-record temperature statistics that top-N queries rank by. Each one is stored in its own
+ * indexed column of {@link Weather} when the record is inserted.
+ */
+public enum TemperatureMetric {
+    MAX("maxTemperature", true, WeatherRow::getMaxTemperature),
+    MIN("minTemperature", false, WeatherRow::getMinTemperature),
+    MEAN("meanTemperature", true, WeatherRow::getMeanTemperature);
+
+    private final String property;
+    private final boolean descendingByDefault;
+    private final Function<WeatherRow, Double> column;
+
+    TemperatureMetric(String property, boolean descendingByDefault, Function<WeatherRow, Double> column) {
+        this.property = property;
+        this.descendingByDefault = descendingByDefault;
+        this.column = column;
+    }
+
+    public static TemperatureMetric of(String metric) {
+        for (TemperatureMetric candidate : values()) {
+            if (candidate.name().equalsIgnoreCase(metric)) {
+                return candidate;
+            }
+        }
+        throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid metric. Use max, min or mean.");
+    }
+
+    /**
+     * Fills the precomputed statistics columns from the record's temperatures. Records without
+     * any temperature keep {@code null} statistics but a count of zero, so they count as done.
+     */
+    public static void fillColumns(Weather weather) {
+        List<Double> temperatures = weather.getTemperatures();
+        weather.setMaxTemperature(MAX.compute(temperatures));
+        weather.setMinTemperature(MIN.compute(temperatures));
+        weather.setMeanTemperature(MEAN.compute(temperatures));
+        weather.setTemperatureCount(temperatures == null ? 0 : (int) temperatures.stream().filter(Objects::nonNull).count());
+    }
+
+    /**
+     * @return the entity property holding this statistic, for sorting
+     */
+    public String getProperty() {
+        return property;
+    }
+
+    // Hottest first for max and mean, coldest first for min
+    public boolean isDescendingByDefault() {
+        return descendingByDefault;
+    }
+
+    /**
+     * @return the statistic over the given temperatures, or {@code null} when there are none
+     */
+    public Double compute(List<Double> temperatures) {
+        if (temperatures == null) {
+            return null;
+        }
+        double result = this == MAX ? Double.NEGATIVE_INFINITY : this == MIN ? Double.POSITIVE_INFINITY : 0;
+        int count = 0;
+        for (Double temperature : temperatures) {
+            if (temperature == null) {
+                continue;
+            }
+            switch (this) {
+                case MAX -> result = Math.max(result, temperature);
+                case MIN -> result = Math.min(result, temperature);
+                case MEAN -> result += temperature;
+            }
+            count++;
+        }
+        if (count == 0) {
+            return null;
+        }
+        return this == MEAN ? result / count : result;
+    }
+
+    /**
+     * @return the precomputed statistic selected by a top-N query
+     */
+    public Double precomputed(WeatherRow row) {
+        return Objects.requireNonNull(column.apply(row), "Query did not select the temperature statistics");
+    }
+}
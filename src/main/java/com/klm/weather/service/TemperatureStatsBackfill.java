@@ -0,0 +1,87 @@
+package com.klm.weather.service;
+
+import com.klm.weather.model.Weather;
+import com.klm.weather.repository.WeatherRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fills the temperature statistics columns of records stored without them, so top-N queries see
+ * them. Runs on startup, before the web server accepts requests, and then every
+ * {@code app.top.backfill-interval-ms} for records other processes write without statistics;
+ * one small transaction per batch. Records it cannot compute statistics for are marked with a
+ * count of zero and not selected again.
+ */
+@Component
+public class TemperatureStatsBackfill {
+
+    private static final Logger logger = LoggerFactory.getLogger(TemperatureStatsBackfill.class);
+    private static final int BATCH_SIZE = 500;
+
+    private final WeatherRepository weatherRepository;
+    private final TransactionTemplate transaction;
+    private final long intervalMs;
+    private final ScheduledExecutorService scheduler;
+
+    public TemperatureStatsBackfill(WeatherRepository weatherRepository, PlatformTransactionManager transactionManager,
+                                    @Value("${app.top.backfill-interval-ms:60000}") long intervalMs) {
+        this.weatherRepository = weatherRepository;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.intervalMs = intervalMs;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "weather-stats-backfill");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PostConstruct
+    public void start() {
+        backfill();
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                backfill();
+            } catch (RuntimeException e) {
+                logger.warn("Filling temperature statistics failed", e);
+            }
+        }, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    public synchronized void backfill() {
+        int afterId = 0;
+        int updated = 0;
+        while (true) {
+            int from = afterId;
+            List<Weather> batch = transaction.execute(status -> {
+                List<Weather> rows = weatherRepository.findMissingTemperatureStats(from, PageRequest.ofSize(BATCH_SIZE));
+                rows.forEach(TemperatureMetric::fillColumns);  // Flushed by dirty checking on commit
+                return rows;
+            });
+            if (batch.isEmpty()) {
+                break;
+            }
+            updated += batch.size();
+            afterId = batch.get(batch.size() - 1).getId();
+        }
+        if (updated > 0) {
+            logger.info("Filled temperature statistics for {} weather records", updated);
+        }
+    }
+}
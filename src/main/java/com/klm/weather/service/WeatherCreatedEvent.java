@@ -0,0 +1,26 @@
+package com.klm.weather.service;
+
+import com.klm.weather.model.WeatherDTO;
+
+/**
+ * Published by {@link WeatherService} when a new weather record has been saved.
+ * Listeners bound to the transaction only see it once the record is committed.
+ */
+public class WeatherCreatedEvent {
+
+    private final WeatherDTO weather;
+    private final Integer locationId;
+
+    public WeatherCreatedEvent(WeatherDTO weather, Integer locationId) {
+        this.weather = weather;
+        this.locationId = locationId;
+    }
+
+    public WeatherDTO getWeather() {
+        return weather;
+    }
+
+    public Integer getLocationId() {
+        return locationId;
+    }
+}
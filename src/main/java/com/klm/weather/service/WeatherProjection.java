@@ -0,0 +1,127 @@
+package com.klm.weather.service;
+
+import com.klm.weather.model.Location;
+import com.klm.weather.model.WeatherDTO;
+import com.klm.weather.model.WeatherRow;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Which fields of a weather record a client asked for ({@code fields=}) and which slice of the
+ * hourly temperatures ({@code hours=from-to}, inclusive, 0-based).
+ */
+public class WeatherProjection {
+
+    public static final Set<String> FIELDS = Set.of("id", "date", "lat", "lon", "city", "state", "temperatures");
+
+    private static final WeatherProjection ALL = new WeatherProjection(FIELDS, null, null);
+
+    private final Set<String> fields;
+    private final Integer fromHour;
+    private final Integer toHour;
+
+    private WeatherProjection(Set<String> fields, Integer fromHour, Integer toHour) {
+        this.fields = fields;
+        this.fromHour = fromHour;
+        this.toHour = toHour;
+    }
+
+    public static WeatherProjection all() {
+        return ALL;
+    }
+
+    /**
+     * Parses the {@code fields} and {@code hours} request parameters; both are optional.
+     */
+    public static WeatherProjection of(String fields, String hours) {
+        if (fields == null && hours == null) {
+            return ALL;
+        }
+        Set<String> requested = FIELDS;
+        if (fields != null) {
+            requested = Arrays.stream(fields.split(","))
+                    .map(String::trim)
+                    .filter(f -> !f.isEmpty())
+                    .collect(Collectors.toCollection(LinkedHashSet::new));
+            if (requested.isEmpty() || !FIELDS.containsAll(requested)) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid fields. Allowed: " + String.join(",", FIELDS));
+            }
+        }
+        if (hours == null) {
+            return new WeatherProjection(requested, null, null);
+        }
+        try {
+            String[] range = hours.split("-", 2);
+            int from = Integer.parseInt(range[0].trim());
+            int to = range.length > 1 ? Integer.parseInt(range[1].trim()) : from;
+            if (from < 0 || to < from) {
+                throw new NumberFormatException(hours);
+            }
+            return new WeatherProjection(requested, from, to);
+        } catch (NumberFormatException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid hours range. Use from-to, e.g. 12-17.");
+        }
+    }
+
+    public boolean includes(String field) {
+        return fields.contains(field);
+    }
+
+    /**
+     * @return whether the temperatures column has to be read at all
+     */
+    public boolean needsTemperatures() {
+        return fields.contains("temperatures");
+    }
+
+    public boolean hasHourRange() {
+        return fromHour != null;
+    }
+
+    /**
+     * @return the requested hour slice of the given temperatures, clamped to the available hours
+     */
+    public List<Double> slice(List<Double> temperatures) {
+        if (temperatures == null || fromHour == null) {
+            return temperatures;
+        }
+        int from = Math.min(fromHour, temperatures.size());
+        int to = Math.min(toHour + 1, temperatures.size());
+        return temperatures.subList(from, to);
+    }
+
+    public WeatherDTO toDTO(WeatherRow row, Location location) {
+        return new WeatherDTO(
+                includes("id") ? row.getId() : null,
+                includes("date") ? row.getDate() : null,
+                includes("lat") ? row.getLat() : null,
+                includes("lon") ? row.getLon() : null,
+                includes("city") && location != null ? location.getCity() : null,
+                includes("state") && location != null ? location.getState() : null,
+                includes("temperatures") ? slice(row.getTemperatures()) : null
+        );
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof WeatherProjection other)) {
+            return false;
+        }
+        return fields.equals(other.fields) && Objects.equals(fromHour, other.fromHour) && Objects.equals(toHour, other.toHour);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(fields, fromHour, toHour);
+    }
+}
@@ -0,0 +1,69 @@
+package com.klm.weather.service;
+
+import com.klm.weather.model.WeatherDTO;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Fixed size ring of the most recently created weather records.
+ * <p>
+ * Exactly one thread may call {@link #publish(WeatherDTO)}; any number of threads may read.
+ * Every slot carries the sequence it was written for, so a reader can tell an unpublished
+ * slot from one that has already been overwritten without taking a lock.
+ */
+class WeatherRingBuffer {
+
+    private final AtomicReferenceArray<Entry> slots;
+    private final int mask;
+    private volatile long published;
+
+    WeatherRingBuffer(int requestedCapacity) {
+        int capacity = Integer.highestOneBit(Math.max(1, requestedCapacity - 1)) << 1;  // Round up to a power of two
+        this.slots = new AtomicReferenceArray<>(capacity);
+        this.mask = capacity - 1;
+    }
+
+    // Single writer only
+    long publish(WeatherDTO weather) {
+        long sequence = published;
+        slots.set((int) (sequence & mask), new Entry(sequence, weather));
+        published = sequence + 1;
+        return sequence;
+    }
+
+    /**
+     * @return the sequence the next published record will get
+     */
+    long next() {
+        return published;
+    }
+
+    /**
+     * @return the oldest sequence that is still readable
+     */
+    long oldest() {
+        return Math.max(0, published - slots.length());
+    }
+
+    /**
+     * @return the entry for the given sequence, or {@code null} when it has already been overwritten
+     */
+    Entry get(long sequence) {
+        Entry entry = slots.get((int) (sequence & mask));
+        return entry != null && entry.sequence == sequence ? entry : null;
+    }
+
+    int capacity() {
+        return slots.length();
+    }
+
+    static final class Entry {
+        final long sequence;
+        final WeatherDTO weather;
+
+        Entry(long sequence, WeatherDTO weather) {
+            this.sequence = sequence;
+            this.weather = weather;
+        }
+    }
+}
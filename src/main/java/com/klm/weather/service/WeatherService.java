@@ -1,23 +1,42 @@
 package com.klm.weather.service;
 
+import com.klm.weather.datasource.ReadYourWritesTracker;
+import com.klm.weather.index.WeatherBitmapIndex;
 import com.klm.weather.model.Weather;
 import com.klm.weather.model.WeatherDTO;
+import com.klm.weather.model.WeatherLookup;
+import com.klm.weather.model.WeatherRow;
 import com.klm.weather.repository.WeatherRepository;
+import com.klm.weather.tracing.RequestSpan;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 @Service
 public class WeatherService {
@@ -25,23 +44,55 @@ public class WeatherService {
     private static final Logger logger = LoggerFactory.getLogger(WeatherService.class);
 
     private final WeatherRepository weatherRepository;
+    private final LocationDictionary locationDictionary;
+    private final WeatherBitmapIndex bitmapIndex;
+    private final ReadYourWritesTracker readYourWrites;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transaction;
+    private final TransactionTemplate readOnlyTransaction;
+    private final boolean coalesce;
+    private final SingleFlight<List<Object>, Object> inFlightReads;
+    private final int multiGetChunkSize;
 
-    public WeatherService(WeatherRepository weatherRepository) {
+    public WeatherService(WeatherRepository weatherRepository, LocationDictionary locationDictionary,
+                          WeatherBitmapIndex bitmapIndex, ReadYourWritesTracker readYourWrites,
+                          ApplicationEventPublisher eventPublisher, PlatformTransactionManager transactionManager,
+                          @Value("${app.coalesce.enabled:true}") boolean coalesce,
+                          @Value("${app.coalesce.timeout-ms:2000}") long coalesceTimeoutMs,
+                          @Value("${app.mget.chunk-size:500}") int multiGetChunkSize) {
         this.weatherRepository = weatherRepository;
+        this.locationDictionary = locationDictionary;
+        this.bitmapIndex = bitmapIndex;
+        this.readYourWrites = readYourWrites;
+        this.eventPublisher = eventPublisher;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.coalesce = coalesce;
+        this.inFlightReads = new SingleFlight<>(coalesceTimeoutMs, WeatherService::copyResult);
+        this.multiGetChunkSize = multiGetChunkSize;
     }
 
     public WeatherDTO createWeatherRecord(WeatherDTO weather) {
-
-        Weather savedWeather = weatherRepository.save(convertToEntity(weather));
-        return convertToDTO(savedWeather);
+        // Resolved before the insert's transaction opens, so it never waits for a second connection
+        Integer locationId = locationDictionary.resolve(weather.getCity(), weather.getState());
+        return transaction.execute(status -> {
+            Weather savedWeather = weatherRepository.save(convertToEntity(weather, locationId));
+            WeatherDTO created = convertToDTO(savedWeather);
+            // Keep this client's reads on the primary until a replica has caught up
+            readYourWrites.recordWrite();
+            // Stream subscribers are notified once the transaction commits
+            eventPublisher.publishEvent(new WeatherCreatedEvent(created, savedWeather.getLocationId()));
+            return created;
+        });
     }
 
-    public Page<WeatherDTO> getAllWeatherRecords(String date, List<String> cities, String sortBy, String sortDirection, int page, int size) {
-        logger.info("Fetching weather records with filters - Date: {}, Cities: {}, Sort: {}",
-                date != null ? date : "None",
-                cities.isEmpty() ? "All" : String.join(", ", cities),
-                sortBy);
-        Date dateConverted = null;
+    public Page<WeatherDTO> getAllWeatherRecords(String date, List<String> cities, List<String> states, String sortBy,
+                                                 String sortDirection, int page, int size, WeatherProjection projection) {
+        if (logger.isDebugEnabled()) {
+            logger.debug("Fetching weather records with filters - Date: {}, Cities: {}, States: {}, Sort: {}",
+                    date, cities, states, sortBy);
+        }
         Sort sort;
         if ("date".equals(sortBy)) {
             sort = Sort.by(Sort.Direction.fromString(sortDirection), "date")
@@ -55,24 +106,142 @@ public class WeatherService {
         }
         // Create pageable object
         Pageable pageable = PageRequest.of(page, size, sort);
-        if (date != null) {
-            try {
-                SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd");
-                dateConverted=sdf.parse(date);
+        Date dateConverted = parseDate(date);
+        // Resolve city and state names to location ids once, so filters compare integers
+        List<Integer> locationIds = locationDictionary.idsFor(cities, states);
+        if (locationIds != null && locationIds.isEmpty()) {
+            return Page.empty(pageable);
+        }
+        List<Object> key = Arrays.asList("list", dateConverted, locationIds == null ? null : new HashSet<>(locationIds),
+                sort, page, size, projection, readYourWrites.requiresPrimary());
+        return coalesced(key, () -> {
+            if (bitmapIndex.isInSync()) {
+                Page<WeatherDTO> indexed = findIndexed(dateConverted, locationIds, sortBy, sortDirection, pageable, projection);
+                if (indexed != null) {
+                    return indexed;
                 }
-            catch (ParseException e) {
-                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid date format. Use YYYY-MM-DD.");
             }
+            // Only read the temperatures column when the client asked for it
+            Page<WeatherRow> weatherPage = projection.needsTemperatures()
+                    ? weatherRepository.findWeatherRecords(dateConverted, locationIds, pageable)
+                    : weatherRepository.findWeatherSummaries(dateConverted, locationIds, pageable);
+            return weatherPage.map(row -> toDTO(row, projection));
+        });
+    }
+
+    public Optional<WeatherDTO> getWeatherById(Integer id, WeatherProjection projection) {
+        List<Object> key = Arrays.asList("id", id, projection, readYourWrites.requiresPrimary());
+        return coalesced(key, () -> {
+            Optional<WeatherRow> row = projection.needsTemperatures()
+                    ? weatherRepository.findRowById(id)
+                    : weatherRepository.findSummaryById(id);
+            return row.map(r -> toDTO(r, projection));
+        });
+    }
+
+    /**
+     * Looks up many records at once with chunked {@code IN} queries in one transaction; ids without
+     * a row are reported as not found.
+     *
+     * @return one entry per requested id, in request order
+     */
+    public List<WeatherLookup> getWeatherByIds(List<Integer> ids, WeatherProjection projection) {
+        List<Integer> requested = new ArrayList<>(new LinkedHashSet<>(ids));
+        Map<Integer, WeatherDTO> found = new HashMap<>();
+        if (!requested.isEmpty()) {
+            long start = System.nanoTime();
+            try {
+                readOnlyTransaction.executeWithoutResult(status -> {
+                    for (int from = 0; from < requested.size(); from += multiGetChunkSize) {
+                        List<Integer> chunk = requested.subList(from, Math.min(from + multiGetChunkSize, requested.size()));
+                        List<WeatherRow> rows = projection.needsTemperatures()
+                                ? weatherRepository.findRowsByIdIn(chunk)
+                                : weatherRepository.findSummariesByIdIn(chunk);
+                        rows.forEach(row -> found.put(row.getId(), toDTO(row, projection)));
+                    }
+                });
+            } finally {
+                RequestSpan.recordQuery(start);
+            }
+        }
+        List<WeatherLookup> results = new ArrayList<>(ids.size());
+        for (Integer id : ids) {
+            results.add(new WeatherLookup(id, found.get(id)));
+        }
+        return results;
+    }
+
+    /**
+     * Runs a read in its own read-only transaction, sharing it with identical concurrent reads.
+     * Joining callers wait outside any transaction, so they do not hold a connection meanwhile.
+     * The key carries whether the caller is pinned to the primary, so reads that must see the
+     * caller's own writes never share a replica result.
+     */
+    @SuppressWarnings("unchecked")
+    private <T> T coalesced(List<Object> key, Supplier<T> read) {
+        long start = System.nanoTime();
+        try {
+            if (!coalesce) {
+                return readOnlyTransaction.execute(status -> read.get());
+            }
+            return (T) inFlightReads.execute(key, () -> readOnlyTransaction.execute(status -> read.get()));
+        } finally {
+            RequestSpan.recordQuery(start);
+        }
+    }
+
+    // Coalesced reads return a page or an optional record; joiners get their own DTOs
+    @SuppressWarnings("unchecked")
+    private static Object copyResult(Object result) {
+        if (result instanceof Page<?> page) {
+            return ((Page<WeatherDTO>) page).map(WeatherDTO::new);
+        }
+        if (result instanceof Optional<?> optional) {
+            return ((Optional<WeatherDTO>) optional).map(WeatherDTO::new);
+        }
+        return result;
+    }
+
+    // Evaluates the filter on the bitmap index and only fetches the rows of the requested page
+    private Page<WeatherDTO> findIndexed(Date date, List<Integer> locationIds, String sortBy, String sortDirection,
+                                         Pageable pageable, WeatherProjection projection) {
+        boolean sortByDate = "date".equals(sortBy) || "-date".equals(sortBy);
+        boolean descending = sortByDate && ("-date".equals(sortBy) || "desc".equalsIgnoreCase(sortDirection));
+        WeatherBitmapIndex.IndexPage indexPage = bitmapIndex.page(date, locationIds, sortByDate, descending,
+                pageable.getOffset(), pageable.getPageSize());
+        if (indexPage.getIds().isEmpty()) {
+            return new PageImpl<>(List.of(), pageable, indexPage.getTotal());
+        }
+        Map<Integer, WeatherRow> rows = (projection.needsTemperatures()
+                ? weatherRepository.findRowsByIdIn(indexPage.getIds())
+                : weatherRepository.findSummariesByIdIn(indexPage.getIds()))
+                .stream().collect(Collectors.toMap(WeatherRow::getId, Function.identity()));
+        if (rows.size() != indexPage.getIds().size()) {
+            // Rows removed outside this service, or not yet visible on a lagging replica
+            logger.debug("Bitmap index and database disagree, falling back to a database query");
+            return null;
+        }
+        List<WeatherDTO> content = new ArrayList<>(rows.size());
+        for (Integer id : indexPage.getIds()) {
+            content.add(toDTO(rows.get(id), projection));
+        }
+        return new PageImpl<>(content, pageable, indexPage.getTotal());
+    }
+
+    static Date parseDate(String date) {
+        if (date == null) {
+            return null;
         }
-        if (cities != null && cities.isEmpty()) {
-            cities = null;
+        try {
+            SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd");
+            return sdf.parse(date);
+        } catch (ParseException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid date format. Use YYYY-MM-DD.");
         }
-        Page<Weather> weatherPage = weatherRepository.findWeatherRecords(dateConverted, cities, pageable);
-        return weatherPage.map(this::convertToDTO);
     }
 
-    public Optional<WeatherDTO> getWeatherById(Integer id) {
-        return weatherRepository.findById(id).map(this::convertToDTO);
+    private WeatherDTO toDTO(WeatherRow row, WeatherProjection projection) {
+        return projection.toDTO(row, locationDictionary.get(row.getLocationId()));
     }
 
     private WeatherDTO convertToDTO(Weather weather) {
@@ -86,13 +255,15 @@ public class WeatherService {
                 weather.getTemperatures()
         );
     }
-    private Weather convertToEntity(WeatherDTO weatherDTO) {
+    private Weather convertToEntity(WeatherDTO weatherDTO, Integer locationId) {
         Weather weather = new Weather();
         weather.setCity(weatherDTO.getCity());
         weather.setState(weatherDTO.getState());
+        weather.setLocationId(locationId);
         weather.setLat(weatherDTO.getLat());
         weather.setLon(weatherDTO.getLon());
         weather.setTemperatures(weatherDTO.getTemperatures());
+        TemperatureMetric.fillColumns(weather);
         weather.setDate(weatherDTO.getDate());
         return weather;
     }
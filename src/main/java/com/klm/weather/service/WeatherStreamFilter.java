@@ -0,0 +1,43 @@
+package com.klm.weather.service;
+
+import com.klm.weather.model.WeatherDTO;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Stream side equivalent of the date/city filters of {@code WeatherRepository.findWeatherRecords},
+ * with an additional optional state filter. Matching is case insensitive for city and state.
+ */
+public class WeatherStreamFilter {
+
+    private final LocalDate date;
+    private final Set<String> cities;
+    private final String state;
+
+    public WeatherStreamFilter(Date date, List<String> cities, String state) {
+        this.date = date != null ? toLocalDate(date) : null;
+        this.cities = cities != null ? cities.stream().map(String::toLowerCase).collect(Collectors.toSet()) : Set.of();
+        this.state = state != null ? state.trim().toLowerCase() : null;
+    }
+
+    public boolean matches(WeatherDTO weather) {
+        // Records without a date match any date filter, same as the database query
+        if (date != null && weather.getDate() != null && !date.equals(toLocalDate(weather.getDate()))) {
+            return false;
+        }
+        if (!cities.isEmpty() && (weather.getCity() == null || !cities.contains(weather.getCity().toLowerCase()))) {
+            return false;
+        }
+        return state == null || (weather.getState() != null && state.equals(weather.getState().toLowerCase()));
+    }
+
+    // The DATE column is truncated in the JVM default time zone, so compare the same way
+    private static LocalDate toLocalDate(Date date) {
+        return date.toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
+    }
+}
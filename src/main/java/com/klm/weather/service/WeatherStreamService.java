@@ -0,0 +1,225 @@
+package com.klm.weather.service;
+
+import com.klm.weather.model.WeatherDTO;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pushes newly committed weather records to Server-Sent Events subscribers.
+ * <p>
+ * Records are appended to a {@link WeatherRingBuffer} by a single writer thread. Every subscriber
+ * keeps its own cursor into the ring and is drained on a small delivery pool, so a slow client only
+ * ever delays itself. A client that falls more than a ring's worth behind is handled according to
+ * the configured {@link SlowSubscriberPolicy}.
+ */
+@Service
+public class WeatherStreamService {
+
+    private static final Logger logger = LoggerFactory.getLogger(WeatherStreamService.class);
+
+    private final WeatherRingBuffer ringBuffer;
+    private final SlowSubscriberPolicy slowSubscriberPolicy;
+    private final long emitterTimeoutMs;
+    private final boolean clusterEnabled;
+    private final ExecutorService writer;
+    private final ExecutorService delivery;
+    private final Map<Long, Subscriber> subscribers = new ConcurrentHashMap<>();
+    private final AtomicLong subscriberIds = new AtomicLong();
+    // Ring sequences restart at 0 with the process, so event ids carry the start time to tell runs apart
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+
+    public WeatherStreamService(@Value("${app.weather.stream.buffer-size:1024}") int bufferSize,
+                                @Value("${app.weather.stream.slow-subscriber-policy:DROP}") SlowSubscriberPolicy slowSubscriberPolicy,
+                                @Value("${app.weather.stream.timeout-ms:1800000}") long emitterTimeoutMs,
+                                @Value("${app.weather.stream.delivery-threads:4}") int deliveryThreads,
+                                @Value("${app.cluster.enabled:false}") boolean clusterEnabled) {
+        this.ringBuffer = new WeatherRingBuffer(bufferSize);
+        this.slowSubscriberPolicy = slowSubscriberPolicy;
+        this.emitterTimeoutMs = emitterTimeoutMs;
+        this.clusterEnabled = clusterEnabled;
+        this.writer = Executors.newSingleThreadExecutor(daemonThreads("weather-stream-writer"));
+        this.delivery = Executors.newFixedThreadPool(deliveryThreads, daemonThreads("weather-stream-delivery"));
+    }
+
+    /**
+     * Opens a new stream. When {@code lastEventId} was issued by this run, delivery resumes right
+     * after it; if the ring has already moved past it, a {@code dropped} event reports the gap and
+     * delivery resumes at the oldest record still held. Otherwise only records created from now on are sent.
+     */
+    public SseEmitter subscribe(String date, List<String> cities, String state, String lastEventId) {
+        WeatherStreamFilter filter = new WeatherStreamFilter(WeatherService.parseDate(date), cities, state);
+        return subscribe(new SseEmitter(emitterTimeoutMs), filter, lastEventId);
+    }
+
+    SseEmitter subscribe(SseEmitter emitter, WeatherStreamFilter filter, String lastEventId) {
+        long start = resumeFrom(lastEventId);
+        long oldest = ringBuffer.oldest();
+        if (start < oldest) {
+            // Reconnecting after a gap; report it once rather than applying the slow subscriber policy again
+            try {
+                emitter.send(SseEmitter.event().name("dropped").data(oldest - start));
+            } catch (IOException e) {
+                emitter.completeWithError(e);
+                return emitter;
+            }
+            start = oldest;
+        }
+        long id = subscriberIds.incrementAndGet();
+        Subscriber subscriber = new Subscriber(id, emitter, filter, start);
+        subscribers.put(id, subscriber);
+        emitter.onCompletion(() -> subscribers.remove(id));
+        emitter.onTimeout(() -> subscribers.remove(id));
+        emitter.onError(e -> subscribers.remove(id));
+        schedule(subscriber);
+        return emitter;
+    }
+
+    // Runs after the creating transaction commits, or right away when there was none
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onWeatherCreated(WeatherCreatedEvent event) {
+        // In cluster mode the record carries a shard-local id; WeatherClusterService publishes it with its global id
+        if (!clusterEnabled) {
+            publish(event.getWeather());
+        }
+    }
+
+    /**
+     * Sends a created record to every matching subscriber of this node.
+     */
+    public void publish(WeatherDTO weather) {
+        writer.execute(() -> {
+            ringBuffer.publish(weather);
+            subscribers.values().forEach(this::schedule);
+        });
+    }
+
+    private long resumeFrom(String lastEventId) {
+        long next = ringBuffer.next();
+        String prefix = epoch + '-';
+        if (lastEventId == null || !lastEventId.startsWith(prefix)) {
+            return next;  // None given, or issued before a restart
+        }
+        try {
+            long sequence = Long.parseLong(lastEventId.substring(prefix.length()));
+            return sequence >= 0 && sequence < next ? sequence + 1 : next;
+        } catch (NumberFormatException e) {
+            return next;
+        }
+    }
+
+    int subscriberCount() {
+        return subscribers.size();
+    }
+
+    long published() {
+        return ringBuffer.next();
+    }
+
+    private void schedule(Subscriber subscriber) {
+        if (subscriber.draining.compareAndSet(false, true)) {
+            delivery.execute(() -> drain(subscriber));
+        }
+    }
+
+    private void drain(Subscriber subscriber) {
+        try {
+            while (subscriber.cursor < ringBuffer.next()) {
+                WeatherRingBuffer.Entry entry = ringBuffer.get(subscriber.cursor);
+                if (entry == null) {
+                    if (!handleLag(subscriber)) {
+                        return;
+                    }
+                    continue;
+                }
+                if (subscriber.filter.matches(entry.weather)) {
+                    subscriber.emitter.send(SseEmitter.event()
+                            .id(epoch + '-' + entry.sequence)
+                            .name("weather")
+                            .data(entry.weather, MediaType.APPLICATION_JSON));
+                }
+                subscriber.cursor++;
+            }
+        } catch (IOException | IllegalStateException e) {
+            // Client went away; the emitter callbacks may not fire for a broken connection
+            subscribers.remove(subscriber.id);
+            subscriber.emitter.completeWithError(e);
+            return;
+        } finally {
+            subscriber.draining.set(false);
+        }
+        // A record may have been published between the last check and clearing the flag
+        if (subscriber.cursor < ringBuffer.next() && subscribers.containsKey(subscriber.id)) {
+            schedule(subscriber);
+        }
+    }
+
+    private boolean handleLag(Subscriber subscriber) throws IOException {
+        long oldest = ringBuffer.oldest();
+        long missed = oldest - subscriber.cursor;
+        if (slowSubscriberPolicy == SlowSubscriberPolicy.DISCONNECT) {
+            logger.debug("Disconnecting stream subscriber {} after falling {} records behind", subscriber.id, missed);
+            subscribers.remove(subscriber.id);
+            try {
+                subscriber.emitter.send(SseEmitter.event().name("lagged").data(missed));
+            } catch (IOException | IllegalStateException e) {
+                subscriber.emitter.completeWithError(e);
+                return false;
+            }
+            subscriber.emitter.complete();
+            return false;
+        }
+        logger.debug("Stream subscriber {} dropped {} records", subscriber.id, missed);
+        subscriber.emitter.send(SseEmitter.event().name("dropped").data(missed));
+        subscriber.cursor = oldest;
+        return true;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        writer.shutdownNow();
+        delivery.shutdownNow();
+        subscribers.values().forEach(s -> s.emitter.complete());
+        subscribers.clear();
+    }
+
+    private static ThreadFactory daemonThreads(String name) {
+        AtomicLong counter = new AtomicLong();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private static final class Subscriber {
+        final long id;
+        final SseEmitter emitter;
+        final WeatherStreamFilter filter;
+        final AtomicBoolean draining = new AtomicBoolean();
+        // Only touched by the delivery thread currently holding the draining flag
+        volatile long cursor;
+
+        Subscriber(long id, SseEmitter emitter, WeatherStreamFilter filter, long cursor) {
+            this.id = id;
+            this.emitter = emitter;
+            this.filter = filter;
+            this.cursor = cursor;
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.klm.weather.service;
+
+import com.klm.weather.model.RankedWeather;
+import com.klm.weather.model.WeatherRow;
+import com.klm.weather.repository.WeatherRepository;
+import com.klm.weather.tracing.RequestSpan;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * Top-N weather records by a {@link TemperatureMetric}, e.g. the hottest city-days of a month.
+ * <p>
+ * Over whole days the database does the work: it orders by the precomputed, indexed statistics
+ * column and returns only {@code n} rows. With an hour range the statistic has to be computed
+ * per row, so the filtered rows are scanned in id-ordered batches, each batch ranked in parallel
+ * into bounded heaps; memory stays at {@code n} candidates plus one batch.
+ * <p>
+ * Statistics are filled on insert, and for records written without them by
+ * {@link TemperatureStatsBackfill}, so the request path never computes them for whole days.
+ */
+@Service
+public class WeatherTopService {
+
+    private final WeatherRepository weatherRepository;
+    private final LocationDictionary locationDictionary;
+    private final TransactionTemplate readOnlyTransaction;
+    private final int scanBatchSize;
+
+    public WeatherTopService(WeatherRepository weatherRepository, LocationDictionary locationDictionary,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${app.top.scan-batch-size:5000}") int scanBatchSize) {
+        this.weatherRepository = weatherRepository;
+        this.locationDictionary = locationDictionary;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.scanBatchSize = scanBatchSize;
+    }
+
+    public List<RankedWeather> getTopWeather(TemperatureMetric metric, int n, boolean descending, String date,
+                                             String from, String to, List<String> cities, List<String> states,
+                                             WeatherProjection projection) {
+        Date onDate = WeatherService.parseDate(date);
+        Date fromDate = WeatherService.parseDate(from);
+        Date toDate = WeatherService.parseDate(to);
+        List<Integer> locationIds = locationDictionary.idsFor(cities, states);
+        if (locationIds != null && locationIds.isEmpty()) {
+            return List.of();
+        }
+        long start = System.nanoTime();
+        try {
+            return readOnlyTransaction.execute(status -> projection.hasHourRange()
+                    ? scan(metric, n, descending, onDate, fromDate, toDate, locationIds, projection)
+                    : pushDown(metric, n, descending, onDate, fromDate, toDate, locationIds, projection));
+        } finally {
+            RequestSpan.recordQuery(start);
+        }
+    }
+
+    private List<RankedWeather> pushDown(TemperatureMetric metric, int n, boolean descending, Date date, Date from,
+                                         Date to, List<Integer> locationIds, WeatherProjection projection) {
+        Sort sort = Sort.by(descending ? Sort.Direction.DESC : Sort.Direction.ASC, metric.getProperty())
+                .and(Sort.by(Sort.Direction.ASC, "id"));
+        PageRequest pageRequest = PageRequest.of(0, n, sort);
+        List<WeatherRow> rows = projection.needsTemperatures()
+                ? weatherRepository.findTopRecords(date, from, to, locationIds, pageRequest)
+                : weatherRepository.findTopSummaries(date, from, to, locationIds, pageRequest);
+        return rows.stream()
+                .map(row -> ranked(metric.precomputed(row), row, projection))
+                .collect(Collectors.toList());
+    }
+
+    private List<RankedWeather> scan(TemperatureMetric metric, int n, boolean descending, Date date, Date from,
+                                     Date to, List<Integer> locationIds, WeatherProjection projection) {
+        Comparator<Candidate> ranking = ranking(descending);
+        BoundedHeap<Candidate> top = new BoundedHeap<>(n, ranking);
+        int afterId = 0;
+        List<WeatherRow> batch;
+        do {
+            batch = weatherRepository.findRecordsAfter(afterId, date, from, to, locationIds, PageRequest.ofSize(scanBatchSize));
+            if (batch.isEmpty()) {
+                break;
+            }
+            top.merge(batch.parallelStream()
+                    .map(row -> candidate(metric, row, projection))
+                    .filter(Objects::nonNull)
+                    .collect(BoundedHeap.collector(n, ranking)));
+            afterId = batch.get(batch.size() - 1).getId();
+        } while (batch.size() == scanBatchSize);
+        return top.toSortedList().stream()
+                .map(c -> ranked(c.value, c.row, projection))
+                .collect(Collectors.toList());
+    }
+
+    // By value, ties broken by id like the database's order
+    private static Comparator<Candidate> ranking(boolean descending) {
+        Comparator<Double> values = descending ? Comparator.reverseOrder() : Comparator.naturalOrder();
+        return Comparator.comparing((Candidate c) -> c.value, values).thenComparing(c -> c.row.getId());
+    }
+
+    private static Candidate candidate(TemperatureMetric metric, WeatherRow row, WeatherProjection projection) {
+        Double value = metric.compute(projection.slice(row.getTemperatures()));
+        return value != null ? new Candidate(row, value) : null;
+    }
+
+    private RankedWeather ranked(Double value, WeatherRow row, WeatherProjection projection) {
+        return new RankedWeather(value, projection.toDTO(row, locationDictionary.get(row.getLocationId())));
+    }
+
+    private static final class Candidate {
+        final WeatherRow row;
+        final double value;
+
+        Candidate(WeatherRow row, double value) {
+            this.row = row;
+            this.value = value;
+        }
+    }
+}
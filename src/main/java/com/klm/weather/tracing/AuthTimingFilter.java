@@ -0,0 +1,29 @@
+package com.klm.weather.tracing;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Marks the end of the auth phase of the current {@link RequestSpan}. Added to the security filter
+ * chain right after authorization.
+ */
+public class AuthTimingFilter extends OncePerRequestFilter {
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        RequestSpan span = RequestSpan.current();
+        if (span != null) {
+            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+            span.authenticated(authentication != null ? authentication.getName() : null);
+        }
+        filterChain.doFilter(request, response);
+    }
+}
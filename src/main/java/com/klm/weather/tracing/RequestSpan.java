@@ -0,0 +1,110 @@
+package com.klm.weather.tracing;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Timings of one HTTP request: how long the security filter chain took to authenticate and
+ * authorize it, how long it spent in database reads and how long writing the JSON body took.
+ * <p>
+ * A span is only touched by the thread serving its request until it is handed to the
+ * {@link SpanRingBuffer}, so its fields need no synchronization.
+ */
+public final class RequestSpan {
+
+    private static final ThreadLocal<RequestSpan> CURRENT = new ThreadLocal<>();
+
+    private final String method;
+    private final String path;
+    private final long startMillis;
+    private final long startNanos;
+    private final boolean sampled;
+    private long authNanos = -1;
+    private long queryNanos;
+    private long serializationNanos;
+    private long totalNanos;
+    private int status;
+    private String user;
+
+    RequestSpan(String method, String path, boolean sampled) {
+        this.method = method;
+        this.path = path;
+        this.startMillis = System.currentTimeMillis();
+        this.startNanos = System.nanoTime();
+        this.sampled = sampled;
+    }
+
+    /**
+     * Adds the time since {@code startNanos} to the query phase of the current request, if it is traced.
+     */
+    public static void recordQuery(long startNanos) {
+        RequestSpan span = CURRENT.get();
+        if (span != null) {
+            span.queryNanos += System.nanoTime() - startNanos;
+        }
+    }
+
+    /**
+     * Adds the time since {@code startNanos} to the serialization phase of the current request, if it is traced.
+     */
+    public static void recordSerialization(long startNanos) {
+        RequestSpan span = CURRENT.get();
+        if (span != null) {
+            span.serializationNanos += System.nanoTime() - startNanos;
+        }
+    }
+
+    static RequestSpan current() {
+        return CURRENT.get();
+    }
+
+    void attach() {
+        CURRENT.set(this);
+    }
+
+    void detach() {
+        CURRENT.remove();
+    }
+
+    void authenticated(String user) {
+        if (authNanos < 0) {
+            authNanos = System.nanoTime() - startNanos;
+            this.user = user;
+        }
+    }
+
+    void finish(int status) {
+        this.totalNanos = System.nanoTime() - startNanos;
+        this.status = status;
+    }
+
+    boolean isSampled() {
+        return sampled;
+    }
+
+    long getTotalNanos() {
+        return totalNanos;
+    }
+
+    /**
+     * One line of {@code key=value} pairs, so traces can be grepped and parsed without a schema.
+     */
+    String format(long slowThresholdNanos) {
+        // Requests rejected by the security chain never got past it
+        long auth = authNanos >= 0 ? authNanos : totalNanos;
+        return "start=" + startMillis
+                + " method=" + method
+                + " path=" + path
+                + " status=" + status
+                + " user=" + (user != null ? user : "-")
+                + " total_ms=" + millis(totalNanos)
+                + " auth_ms=" + millis(auth)
+                + " query_ms=" + millis(queryNanos)
+                + " serialization_ms=" + millis(serializationNanos)
+                + " sampled=" + sampled
+                + " slow=" + (totalNanos >= slowThresholdNanos);
+    }
+
+    private static String millis(long nanos) {
+        return String.format("%.3f", nanos / (double) TimeUnit.MILLISECONDS.toNanos(1));
+    }
+}
@@ -0,0 +1,107 @@
+package com.klm.weather.tracing;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sampled request tracing that stays off the request threads' critical path.
+ * <p>
+ * A fraction {@code app.tracing.sample-rate} of requests is recorded, plus every request slower
+ * than {@code app.tracing.slow-threshold-ms}. Finished spans go into a lock-free ring buffer and
+ * a single background thread writes them to the {@code com.klm.weather.trace} logger, one line
+ * per request. Spans that do not fit in the buffer are dropped and counted in
+ * {@code weather.tracing.dropped}.
+ */
+@Component
+public class RequestTracer {
+
+    private static final Logger traceLog = LoggerFactory.getLogger("com.klm.weather.trace");
+
+    private final boolean enabled;
+    private final double sampleRate;
+    private final long slowThresholdNanos;
+    private final long flushIntervalMs;
+    private final SpanRingBuffer buffer;
+    private ScheduledExecutorService drainer;
+
+    public RequestTracer(MeterRegistry meterRegistry,
+                         @Value("${app.tracing.enabled:true}") boolean enabled,
+                         @Value("${app.tracing.sample-rate:0.01}") double sampleRate,
+                         @Value("${app.tracing.slow-threshold-ms:500}") long slowThresholdMs,
+                         @Value("${app.tracing.buffer-size:4096}") int bufferSize,
+                         @Value("${app.tracing.flush-interval-ms:1000}") long flushIntervalMs) {
+        this.enabled = enabled;
+        this.sampleRate = sampleRate;
+        this.slowThresholdNanos = TimeUnit.MILLISECONDS.toNanos(slowThresholdMs);
+        this.flushIntervalMs = flushIntervalMs;
+        this.buffer = new SpanRingBuffer(bufferSize);
+        Gauge.builder("weather.tracing.dropped", buffer, SpanRingBuffer::dropped).register(meterRegistry);
+    }
+
+    @PostConstruct
+    void start() {
+        if (!enabled) {
+            return;
+        }
+        drainer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "request-trace-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        drainer.scheduleWithFixedDelay(this::flush, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        if (drainer != null) {
+            drainer.shutdown();
+            drainer.awaitTermination(5, TimeUnit.SECONDS);
+            flush();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Starts a span for the current request and binds it to the calling thread.
+     */
+    RequestSpan begin(String method, String path) {
+        boolean sampled = sampleRate >= 1.0 || (sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate);
+        RequestSpan span = new RequestSpan(method, path, sampled);
+        span.attach();
+        return span;
+    }
+
+    /**
+     * Finishes the span and queues it for writing when it was sampled or slow.
+     */
+    void end(RequestSpan span, int status) {
+        span.detach();
+        span.finish(status);
+        if (span.isSampled() || span.getTotalNanos() >= slowThresholdNanos) {
+            buffer.offer(span);
+        }
+    }
+
+    // Only ever runs on the drainer thread, or after it has stopped
+    void flush() {
+        if (traceLog.isInfoEnabled()) {
+            buffer.drain(span -> traceLog.info(span.format(slowThresholdNanos)));
+        } else {
+            buffer.drain(span -> { });
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.klm.weather.tracing;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * Bounded hand-off of finished spans from request threads to the single draining thread.
+ * <p>
+ * Any number of threads may {@link #offer} without taking a lock: a slot is claimed with a CAS
+ * on the head sequence and then filled in. When the drainer has fallen a full buffer behind,
+ * spans are dropped rather than making a request wait.
+ */
+class SpanRingBuffer {
+
+    private final AtomicReferenceArray<RequestSpan> slots;
+    private final int mask;
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    // Only advanced by the draining thread
+    private volatile long tail;
+
+    SpanRingBuffer(int requestedCapacity) {
+        int capacity = Integer.highestOneBit(Math.max(1, requestedCapacity - 1)) << 1;  // Round up to a power of two
+        this.slots = new AtomicReferenceArray<>(capacity);
+        this.mask = capacity - 1;
+    }
+
+    boolean offer(RequestSpan span) {
+        long sequence;
+        do {
+            sequence = head.get();
+            if (sequence - tail >= slots.length()) {
+                dropped.incrementAndGet();
+                return false;
+            }
+        } while (!head.compareAndSet(sequence, sequence + 1));
+        slots.set((int) (sequence & mask), span);
+        return true;
+    }
+
+    /**
+     * Hands every published span to the consumer. Single consumer thread only.
+     *
+     * @return the number of spans drained
+     */
+    int drain(Consumer<RequestSpan> consumer) {
+        int drained = 0;
+        long next = tail;
+        while (next < head.get()) {
+            int index = (int) (next & mask);
+            RequestSpan span = slots.get(index);
+            if (span == null) {
+                // Claimed but not filled in yet, pick it up on the next drain
+                break;
+            }
+            slots.set(index, null);
+            next++;
+            tail = next;
+            consumer.accept(span);
+            drained++;
+        }
+        return drained;
+    }
+
+    long dropped() {
+        return dropped.get();
+    }
+
+    int capacity() {
+        return slots.length();
+    }
+}
@@ -0,0 +1,78 @@
+package com.klm.weather;
+
+import com.klm.weather.limit.AdaptiveConcurrencyLimit;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AdaptiveConcurrencyLimitTest {
+
+    @Test
+    public void testLimitShrinksWhenLatencyRisesAndRejectsWhenFull() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(10, 1, 100, 2.0);
+        for (int i = 0; i < 10; i++) {
+            assertTrue(limit.tryAcquire());
+        }
+        assertFalse(limit.tryAcquire());
+
+        // Saturated and fast: the limit grows
+        for (int i = 0; i < 10; i++) {
+            limit.release(TimeUnit.MILLISECONDS.toNanos(5), false);
+            limit.tryAcquire();
+        }
+        int grown = limit.getLimit();
+        assertTrue(grown > 10, "limit " + grown);
+
+        // Saturated and ten times slower: the limit shrinks
+        for (int i = 0; i < 20; i++) {
+            limit.release(TimeUnit.MILLISECONDS.toNanos(50), false);
+            limit.tryAcquire();
+        }
+        assertTrue(limit.getLimit() < grown, "limit " + limit.getLimit());
+    }
+
+    @Test
+    public void testDroppedRequestsBackOffToTheMinimum() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(10, 2, 100, 2.0);
+        for (int i = 0; i < 50; i++) {
+            assertTrue(limit.tryAcquire());
+            limit.release(TimeUnit.MILLISECONDS.toNanos(5), true);
+        }
+        assertEquals(2, limit.getLimit());
+    }
+
+    @Test
+    public void testConcurrentReleasesKeepCountsAndBounds() throws Exception {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(20, 2, 50, 2.0);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> workers = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                int worker = t;
+                workers.add(pool.submit(() -> {
+                    for (int i = 0; i < 10_000; i++) {
+                        if (limit.tryAcquire()) {
+                            limit.release(TimeUnit.MICROSECONDS.toNanos(100 + (i + worker) % 50), i % 97 == 0);
+                        }
+                    }
+                }));
+            }
+            for (Future<?> worker : workers) {
+                worker.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(0, limit.getInFlight());
+        assertTrue(limit.getLimit() >= 2 && limit.getLimit() <= 50, "limit " + limit.getLimit());
+    }
+}
@@ -0,0 +1,50 @@
+package com.klm.weather;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Every endpoint class is full, so all limited requests are shed
+@SpringBootTest(properties = {
+        "app.limits.initial-limit=0",
+        "app.limits.min-limit=0"
+})
+@AutoConfigureMockMvc
+public class ConcurrencyLimitAdmissionTest {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @SpyBean
+    private PasswordEncoder passwordEncoder;
+
+    @Test
+    public void testShedRequestsNeverReachThePasswordCheck() throws Exception {
+        mockMvc.perform(get("/weather").with(httpBasic("user", "password")))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "1"));
+
+        verify(passwordEncoder, never()).matches(any(), anyString());
+    }
+
+    @Test
+    public void testUnlimitedEndpointsStillCheckThePassword() throws Exception {
+        mockMvc.perform(get("/actuator/health").with(httpBasic("user", "password")))
+                .andExpect(status().isOk());
+
+        verify(passwordEncoder, atLeastOnce()).matches(any(), anyString());
+    }
+}
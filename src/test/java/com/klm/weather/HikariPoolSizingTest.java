@@ -0,0 +1,46 @@
+package com.klm.weather;
+
+import com.klm.weather.datasource.HikariPoolSizing;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class HikariPoolSizingTest {
+
+    @Test
+    public void testUnsizedPoolsGetAFixedSizeFromTheCores() {
+        HikariDataSource dataSource = new HikariDataSource();
+
+        new HikariPoolSizing(new MockEnvironment()).postProcessAfterInitialization(dataSource, "dataSource");
+
+        int expected = Runtime.getRuntime().availableProcessors() * 2 + 1;
+        assertEquals(expected, dataSource.getMaximumPoolSize());
+        assertEquals(expected, dataSource.getMinimumIdle());
+    }
+
+    @Test
+    public void testConfiguredPoolSizeReplacesTheComputedOne() {
+        HikariDataSource dataSource = new HikariDataSource();
+
+        new HikariPoolSizing(new MockEnvironment().withProperty("app.datasource.pool-size", "7"))
+                .postProcessAfterInitialization(dataSource, "dataSource");
+
+        assertEquals(7, dataSource.getMaximumPoolSize());
+    }
+
+    @Test
+    public void testExplicitlySizedPoolsAreLeftAlone() {
+        // e.g. app.datasource.replica.hikari.maximum-pool-size, bound before this post processor runs
+        HikariDataSource replica = new HikariDataSource();
+        replica.setMaximumPoolSize(3);
+        replica.setMinimumIdle(1);
+
+        new HikariPoolSizing(new MockEnvironment().withProperty("app.datasource.pool-size", "7"))
+                .postProcessAfterInitialization(replica, "replicaDataSource");
+
+        assertEquals(3, replica.getMaximumPoolSize());
+        assertEquals(1, replica.getMinimumIdle());
+    }
+}
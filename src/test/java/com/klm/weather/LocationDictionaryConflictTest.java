@@ -0,0 +1,30 @@
+package com.klm.weather;
+
+import com.klm.weather.model.Location;
+import com.klm.weather.repository.LocationRepository;
+import com.klm.weather.service.LocationDictionary;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class LocationDictionaryConflictTest {
+
+    @Test
+    public void testUniqueConflictRereadsTheWinningRow() {
+        LocationRepository repository = mock(LocationRepository.class);
+        Location winner = mock(Location.class);
+        when(winner.getId()).thenReturn(7);
+        when(winner.getCity()).thenReturn("Chicago");
+        when(winner.getState()).thenReturn("Illinois");
+        when(repository.findByCityAndState("Chicago", "Illinois")).thenReturn(Optional.empty(), Optional.of(winner));
+        when(repository.save(any(Location.class))).thenThrow(new DataIntegrityViolationException("duplicate location"));
+
+        assertEquals(7, new LocationDictionary(repository).resolve("Chicago", "Illinois"));
+    }
+}
@@ -0,0 +1,108 @@
+package com.klm.weather;
+
+import com.klm.weather.model.Location;
+import com.klm.weather.repository.LocationRepository;
+import com.klm.weather.service.LocationDictionary;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+public class LocationDictionaryTest {
+    @Autowired
+    private LocationDictionary locationDictionary;
+    @Autowired
+    private LocationRepository locationRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    public void testNewLocationIsStored() {
+        Integer id = locationDictionary.resolve("Chicago", "Illinois");
+
+        Location stored = locationRepository.findById(id).orElseThrow();
+        assertEquals("Chicago", stored.getCity());
+        assertEquals("Illinois", stored.getState());
+    }
+
+    @Test
+    public void testExistingLocationIsReused() {
+        Integer first = locationDictionary.resolve("Chicago", "Illinois");
+        Integer second = locationDictionary.resolve("Chicago", "Illinois");
+
+        assertEquals(first, second);
+        assertEquals(1, locationRepository.count());
+    }
+
+    @Test
+    public void testConcurrentFirstUseCreatesOneLocation() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Integer>> ids = IntStream.range(0, 8)
+                    .mapToObj(i -> pool.submit(() -> locationDictionary.resolve("Oakland", "California")))
+                    .collect(Collectors.toList());
+            Set<Integer> distinct = ids.stream().map(LocationDictionaryTest::get).collect(Collectors.toSet());
+            assertEquals(1, distinct.size());
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(1, locationRepository.count());
+    }
+
+    @Test
+    public void testCityAndStateFiltersAreCaseInsensitive() {
+        Integer chicago = locationDictionary.resolve("Chicago", "Illinois");
+        locationDictionary.resolve("Oakland", "California");
+
+        assertEquals(List.of(chicago), locationDictionary.idsForCities(List.of("chicago")));
+        assertEquals(List.of(chicago), locationDictionary.idsForStates(List.of("illinois")));
+        assertEquals(List.of(chicago), locationDictionary.idsFor(List.of("chicago", "oakland"), List.of("illinois")));
+    }
+
+    @Test
+    public void testLocationsCreatedByAnotherProcessAreLoadedFromDatabase() {
+        // Written straight to the table, as another instance sharing the database would
+        Location boston = locationRepository.save(new Location("Boston", "Massachusetts"));
+
+        assertEquals(List.of(boston.getId()), locationDictionary.idsForCities(List.of("boston")));
+        assertEquals(List.of(boston.getId()), locationDictionary.idsForStates(List.of("massachusetts")));
+        assertEquals("Boston", locationDictionary.get(boston.getId()).getCity());
+        assertEquals(boston.getId(), locationDictionary.resolve("Boston", "Massachusetts"));
+        assertTrue(locationDictionary.idsForCities(List.of("nowhere")).isEmpty());
+    }
+
+    @Test
+    public void testRowsWithoutLookupKeysAreFilledOnLoad() {
+        // As left behind by a version that did not have the key columns yet
+        jdbcTemplate.update("INSERT INTO location (city, state) VALUES ('Denver', 'Colorado')");
+
+        locationDictionary.load();
+
+        Integer denver = locationRepository.findByCityKey("denver").get(0).getId();
+        assertEquals(List.of(denver), locationRepository.findByStateKey("colorado").stream().map(Location::getId).collect(Collectors.toList()));
+        assertEquals(List.of(denver), locationDictionary.idsForCities(List.of("denver")));
+    }
+
+    private static Integer get(Future<Integer> future) {
+        try {
+            return future.get(10, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.klm.weather;
+
+import com.klm.weather.datasource.DataSourceRole;
+import com.klm.weather.datasource.ReadWriteRoutingDataSource;
+import com.klm.weather.datasource.ReadYourWritesTracker;
+import com.klm.weather.service.WeatherProjection;
+import com.klm.weather.service.WeatherService;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = {
+        "app.datasource.primary.url=jdbc:h2:mem:primary;DB_CLOSE_DELAY=-1",
+        "app.datasource.replica.url=jdbc:h2:mem:primary;DB_CLOSE_DELAY=-1",
+        "app.datasource.read-your-writes-ms=60000"
+})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+public class ReadWriteRoutingTest {
+    @Autowired
+    private ReadWriteRoutingDataSource routingDataSource;
+    @Autowired
+    private ReadYourWritesTracker readYourWrites;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private WeatherService weatherService;
+    @Autowired
+    @Qualifier("replicaDataSource")
+    private HikariDataSource replicaDataSource;
+
+    @Test
+    @WithMockUser(roles = "USER")
+    public void testReadOnlyTransactionsRouteToReplica() {
+        assertEquals(DataSourceRole.REPLICA, routeFor(true));
+        assertEquals(DataSourceRole.PRIMARY, routeFor(false));
+
+        weatherService.getAllWeatherRecords(null, List.of(), List.of(), "id", "asc", 0, 10, WeatherProjection.all());
+        assertTrue(replicaDataSource.getHikariPoolMXBean().getTotalConnections() > 0);
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    public void testReadYourWritesPinsWriterToPrimary() {
+        readYourWrites.recordWrite();
+        assertEquals(DataSourceRole.PRIMARY, routeFor(true));
+    }
+
+    private DataSourceRole routeFor(boolean readOnly) {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setReadOnly(readOnly);
+        return template.execute(status -> routingDataSource.determineCurrentLookupKey());
+    }
+}
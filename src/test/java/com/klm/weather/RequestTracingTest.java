@@ -0,0 +1,47 @@
+package com.klm.weather;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.system.CapturedOutput;
+import org.springframework.boot.test.system.OutputCaptureExtension;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "app.tracing.sample-rate=1.0",
+        "app.tracing.flush-interval-ms=50"
+})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+@AutoConfigureMockMvc
+@ExtendWith(OutputCaptureExtension.class)
+public class RequestTracingTest {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    @WithMockUser(username = "tracer", roles = "USER")
+    public void testSampledRequestIsTracedWithPhases(CapturedOutput output) throws Exception {
+        mockMvc.perform(get("/weather?city=london"))
+                .andExpect(status().isOk());
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!output.getOut().contains("path=/weather") && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        String trace = output.getOut().lines()
+                .filter(line -> line.contains("method=GET path=/weather"))
+                .findFirst().orElse("");
+        assertTrue(trace.contains("status=200"), trace);
+        assertTrue(trace.contains("user=tracer"), trace);
+        assertTrue(trace.contains("auth_ms=") && trace.contains("query_ms=") && trace.contains("serialization_ms="), trace);
+        assertTrue(trace.contains("sampled=true"), trace);
+    }
+}
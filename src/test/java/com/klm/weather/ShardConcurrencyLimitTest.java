@@ -0,0 +1,40 @@
+package com.klm.weather;
+
+import com.klm.weather.cluster.WeatherClusterService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Requests from other nodes carry the client's credentials but are not charged to the client's cap
+@SpringBootTest(properties = {
+        "app.security.user.max-in-flight=0",
+        "app.cluster.enabled=true",
+        "app.cluster.nodes=http://localhost:1",
+        "app.cluster.node-index=0",
+        "app.cluster.secret=test-secret"
+})
+@AutoConfigureMockMvc
+public class ShardConcurrencyLimitTest {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    @WithMockUser(username = "user", roles = "USER")
+    public void testShardRequestsSkipTheUserCap() throws Exception {
+        mockMvc.perform(get("/weather").header(WeatherClusterService.SHARD_LOCAL_HEADER, "test-secret"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    @WithMockUser(username = "user", roles = "USER")
+    public void testInvalidShardHeaderIsChargedToTheUser() throws Exception {
+        mockMvc.perform(get("/weather").header(WeatherClusterService.SHARD_LOCAL_HEADER, "wrong"))
+                .andExpect(status().isTooManyRequests());
+    }
+}
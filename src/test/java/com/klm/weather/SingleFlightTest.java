@@ -0,0 +1,114 @@
+package com.klm.weather;
+
+import com.klm.weather.service.SingleFlight;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SingleFlightTest {
+
+    @Test
+    public void testConcurrentIdenticalCallsShareOneExecution() throws Exception {
+        SingleFlight<String, Integer> singleFlight = new SingleFlight<>(5000);
+        AtomicInteger executions = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(pool.submit(() -> singleFlight.execute("date=2019-06-11", () -> {
+                    executions.incrementAndGet();
+                    await(release);
+                    return 42;
+                })));
+            }
+            // Let every caller reach the in-flight entry before the shared call returns
+            while (executions.get() == 0) {
+                Thread.sleep(5);
+            }
+            Thread.sleep(200);
+            release.countDown();
+            for (Future<Integer> result : results) {
+                assertEquals(42, result.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(1, executions.get());
+        assertEquals(0, singleFlight.inFlightCount());
+
+        // A completed call is never reused
+        assertEquals(7, singleFlight.execute("date=2019-06-11", () -> 7));
+    }
+
+    @Test
+    public void testJoiningCallersGetTheirOwnCopy() throws Exception {
+        SingleFlight<String, List<Integer>> singleFlight = new SingleFlight<>(5000, ArrayList::new);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<Integer> shared = new ArrayList<>(List.of(1, 2));
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            Future<List<Integer>> leader = pool.submit(() -> singleFlight.execute("id=1", () -> {
+                started.countDown();
+                await(release);
+                return shared;
+            }));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            Future<List<Integer>> joiner = pool.submit(() -> singleFlight.execute("id=1", () -> List.of()));
+            Thread.sleep(200);
+            release.countDown();
+
+            assertSame(shared, leader.get(5, TimeUnit.SECONDS));
+            List<Integer> copy = joiner.get(5, TimeUnit.SECONDS);
+            assertNotSame(shared, copy);
+            copy.add(3);
+            assertEquals(List.of(1, 2), shared);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testJoiningCallerTimesOut() throws Exception {
+        SingleFlight<String, Integer> singleFlight = new SingleFlight<>(50);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread leader = new Thread(() -> singleFlight.execute("id=1", () -> {
+            started.countDown();
+            await(release);
+            return 1;
+        }));
+        leader.start();
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        ResponseStatusException e = assertThrows(ResponseStatusException.class,
+                () -> singleFlight.execute("id=1", () -> 2));
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, e.getStatusCode());
+        release.countDown();
+        leader.join();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
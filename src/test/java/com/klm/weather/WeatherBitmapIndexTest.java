@@ -0,0 +1,117 @@
+package com.klm.weather;
+
+import com.klm.weather.index.WeatherBitmapIndex;
+import com.klm.weather.model.Weather;
+import com.klm.weather.repository.WeatherRepository;
+import com.klm.weather.service.LocationDictionary;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "app.index.bitmap.verify-interval-ms=100")
+public class WeatherBitmapIndexTest extends WeatherWebTestSupport {
+    @Autowired
+    private WeatherBitmapIndex bitmapIndex;
+    @Autowired
+    private WeatherRepository weatherRepository;
+    @Autowired
+    private LocationDictionary locationDictionary;
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    public void testCreatedRecordsAreIndexed() throws Exception {
+        createWeather("2019-06-11", "Chicago", "Illinois");
+        createWeather("2019-06-12", "Oakland", "California");
+
+        assertTrue(bitmapIndex.isReady());
+        assertEquals(2, bitmapIndex.size());
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    public void testStateFilterPagesByDateDescending() throws Exception {
+        createIllinoisAndCalifornia();
+
+        mockMvc.perform(get("/weather?state=illinois&sort=-date&size=2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalElements").value(3))
+                .andExpect(jsonPath("$.content", hasSize(2)))
+                .andExpect(jsonPath("$.content[0].date").value("2019-06-12"));
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    public void testCityStateAndDateFiltersAreIntersected() throws Exception {
+        createIllinoisAndCalifornia();
+
+        mockMvc.perform(get("/weather?state=illinois&city=chicago,oakland&date=2019-06-11"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalElements").value(1))
+                .andExpect(jsonPath("$.content[*].city", contains("Chicago")));
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    public void testDisjointCityAndStateReturnEmptyPage() throws Exception {
+        createIllinoisAndCalifornia();
+
+        mockMvc.perform(get("/weather?state=california&city=chicago"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalElements").value(0));
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    public void testRecordsInsertedByAnotherProcessAreFound() throws Exception {
+        createIllinoisAndCalifornia();
+        // Written straight to the table, as another instance sharing the database would
+        Weather weather = new Weather(simpleDateFormat.parse("2019-06-13"), 41.8f, -87.6f, "Chicago", "Illinois", TEMPERATURES);
+        weather.setLocationId(locationDictionary.resolve("Chicago", "Illinois"));
+        weatherRepository.save(weather);
+        bitmapIndex.verify();
+
+        assertTrue(bitmapIndex.isInSync());
+        mockMvc.perform(get("/weather?city=chicago&sort=-date"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalElements").value(3))
+                .andExpect(jsonPath("$.content[0].date").value("2019-06-13"));
+        assertEquals(5, bitmapIndex.size());
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    public void testDeletedRecordsAreNotCountedAndTriggerRebuild() throws Exception {
+        createIllinoisAndCalifornia();
+        int deleted = createWeather("2019-06-13", "Chicago", "Illinois");
+        weatherRepository.deleteById(deleted);
+
+        mockMvc.perform(get("/weather?city=chicago"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalElements").value(2))
+                .andExpect(jsonPath("$.content", hasSize(2)));
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (bitmapIndex.contains(deleted) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertFalse(bitmapIndex.contains(deleted));
+        assertEquals(4, bitmapIndex.size());
+    }
+
+    private void createIllinoisAndCalifornia() throws Exception {
+        createWeather("2019-06-11", "Chicago", "Illinois");
+        createWeather("2019-06-12", "Chicago", "Illinois");
+        createWeather("2019-06-11", "Springfield", "Illinois");
+        createWeather("2019-06-11", "Oakland", "California");
+    }
+}
@@ -0,0 +1,41 @@
+package com.klm.weather;
+
+import com.klm.weather.cluster.ConsistentHashRing;
+import com.klm.weather.cluster.ShardedPageMerger;
+import org.junit.jupiter.api.Test;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class WeatherClusterTest {
+
+    @Test
+    public void testRingIsStableAndMovesFewKeysWhenNodeAdded() {
+        ConsistentHashRing three = new ConsistentHashRing(3, 128);
+        ConsistentHashRing four = new ConsistentHashRing(4, 128);
+        List<String> cities = IntStream.range(0, 2000).mapToObj(i -> "city-" + i).collect(Collectors.toList());
+
+        long moved = cities.stream().filter(c -> three.ownerOf(c) != four.ownerOf(c)).count();
+        assertEquals(three.ownerOf("london"), new ConsistentHashRing(3, 128).ownerOf("london"));
+        // Ideally a quarter of the keys move to the new node; a modulo scheme would move three quarters
+        assertTrue(moved < cities.size() / 2, "moved " + moved);
+        for (int node = 0; node < 3; node++) {
+            int owner = node;
+            assertTrue(cities.stream().filter(c -> three.ownerOf(c) == owner).count() > cities.size() / 6);
+        }
+    }
+
+    @Test
+    public void testMergeKeepsGlobalOrderAcrossShards() {
+        List<List<Integer>> shards = List.of(List.of(1, 4, 7, 10), List.of(2, 5, 8), List.of(3, 6, 9));
+
+        assertEquals(List.of(1, 2, 3, 4), ShardedPageMerger.merge(shards, Comparator.naturalOrder(), 0, 4));
+        assertEquals(List.of(5, 6, 7, 8), ShardedPageMerger.merge(shards, Comparator.naturalOrder(), 4, 4));
+        assertEquals(List.of(9, 10), ShardedPageMerger.merge(shards, Comparator.naturalOrder(), 8, 4));
+    }
+}
@@ -0,0 +1,93 @@
+package com.klm.weather;
+
+import com.klm.weather.model.Weather;
+import com.klm.weather.repository.WeatherRepository;
+import com.klm.weather.service.LocationDictionary;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "app.mget.max-ids=5",
+        "app.mget.chunk-size=2"
+})
+public class WeatherMultiGetTest extends WeatherWebTestSupport {
+    @Autowired
+    private WeatherRepository weatherRepository;
+    @Autowired
+    private LocationDictionary locationDictionary;
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    public void testResultsFollowRequestOrderWithNotFoundMarkers() throws Exception {
+        int chicago = createWeather("2019-06-11", "Chicago", "Illinois");
+        int oakland = createWeather("2019-06-11", "Oakland", "California");
+        int london = createWeather("2019-06-11", "London", "N/A");
+
+        mockMvc.perform(post("/weather/_mget")
+                        .contentType("application/json")
+                        .content("{\"ids\":[" + london + ",999," + chicago + "," + oakland + "," + london + "]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(5)))
+                .andExpect(jsonPath("$[*].id", contains(london, 999, chicago, oakland, london)))
+                .andExpect(jsonPath("$[*].found", contains(true, false, true, true, true)))
+                .andExpect(jsonPath("$[1].weather").doesNotExist())
+                .andExpect(jsonPath("$[0].weather.city").value("London"))
+                .andExpect(jsonPath("$[2].weather.city").value("Chicago"));
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    public void testRecordsInsertedByAnotherProcessAreFound() throws Exception {
+        int chicago = createWeather("2019-06-11", "Chicago", "Illinois");
+        // Written straight to the table, so the bitmap index has not seen it yet
+        Weather weather = new Weather(simpleDateFormat.parse("2019-06-12"), 37.8f, -122.3f, "Oakland", "California", TEMPERATURES);
+        weather.setLocationId(locationDictionary.resolve("Oakland", "California"));
+        int oakland = weatherRepository.save(weather).getId();
+
+        mockMvc.perform(post("/weather/_mget")
+                        .contentType("application/json")
+                        .content("{\"ids\":[" + chicago + "," + oakland + "]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].found", contains(true, true)))
+                .andExpect(jsonPath("$[1].weather.city").value("Oakland"));
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    public void testFieldsProjectionAppliesToEachRecord() throws Exception {
+        int chicago = createWeather("2019-06-11", "Chicago", "Illinois");
+
+        mockMvc.perform(post("/weather/_mget?fields=id,city")
+                        .contentType("application/json")
+                        .content("{\"ids\":[" + chicago + "]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].weather.city").value("Chicago"))
+                .andExpect(jsonPath("$[0].weather.temperatures").doesNotExist());
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    public void testTooManyIdsAreRejected() throws Exception {
+        mockMvc.perform(post("/weather/_mget")
+                        .contentType("application/json")
+                        .content("{\"ids\":[1,2,3,4,5,6]}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    public void testEmptyIdsAreRejected() throws Exception {
+        mockMvc.perform(post("/weather/_mget")
+                        .contentType("application/json")
+                        .content("{\"ids\":[]}"))
+                .andExpect(status().isBadRequest());
+    }
+}
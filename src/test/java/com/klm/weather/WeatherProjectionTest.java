@@ -0,0 +1,79 @@
+package com.klm.weather;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.klm.weather.model.WeatherDTO;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.test.context.support.WithMockUser;
+
+import java.util.List;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class WeatherProjectionTest extends WeatherWebTestSupport {
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    public void testFieldsProjectionOnList() throws Exception {
+        createWeather("2019-06-11", "Chicago", "Illinois");
+
+        mockMvc.perform(get("/weather?fields=id,city"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", hasSize(1)))
+                .andExpect(jsonPath("$.content[0].city").value("Chicago"))
+                .andExpect(jsonPath("$.content[0].temperatures").doesNotExist())
+                .andExpect(jsonPath("$.content[0].lat").doesNotExist());
+    }
+
+    @Test
+    public void testNullFieldsAreSerializedWithoutProjection() throws Exception {
+        String json = objectMapper.writeValueAsString(
+                new WeatherDTO(1, null, 41.8818f, -87.6231f, "Chicago", "Illinois", List.of(24.0)));
+
+        assertTrue(json.contains("\"date\":null"), json);
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    public void testFieldsProjectionOnItemOmitsOtherFields() throws Exception {
+        int id = createWeather("2019-06-11", "Chicago", "Illinois");
+
+        mockMvc.perform(get("/weather/" + id + "?fields=city"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.city").value("Chicago"))
+                .andExpect(jsonPath("$.id").doesNotExist())
+                .andExpect(jsonPath("$.date").doesNotExist());
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    public void testHoursProjectionOnItem() throws Exception {
+        int id = createWeather("2019-06-11", "Chicago", "Illinois");
+
+        mockMvc.perform(get("/weather/" + id + "?hours=2-4"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.city").value("Chicago"))
+                .andExpect(jsonPath("$.temperatures", contains(24.0, 19.5, 25.5)));
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    public void testInvalidHoursRangeIsRejected() throws Exception {
+        mockMvc.perform(get("/weather?hours=5-2"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    public void testUnknownFieldIsRejected() throws Exception {
+        mockMvc.perform(get("/weather?fields=id,humidity"))
+                .andExpect(status().isBadRequest());
+    }
+}
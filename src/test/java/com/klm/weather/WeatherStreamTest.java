@@ -0,0 +1,61 @@
+package com.klm.weather;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+public class WeatherStreamTest extends WeatherWebTestSupport {
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    public void testStreamPushesOnlyMatchingRecords() throws Exception {
+        MvcResult stream = mockMvc.perform(get("/weather/stream?city=chicago"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        createWeather("2019-06-11", "Oakland", "California");
+        createWeather("2019-06-11", "Chicago", "Illinois");
+
+        String events = awaitContent(stream, "Chicago");
+        Assertions.assertTrue(events.contains("event:weather"), events);
+        Assertions.assertFalse(events.contains("Oakland"), events);
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    public void testStreamResumesAfterLastEventId() throws Exception {
+        MvcResult first = mockMvc.perform(get("/weather/stream"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        createWeather("2019-06-11", "Oakland", "California");
+        createWeather("2019-06-11", "Chicago", "Illinois");
+        String events = awaitContent(first, "Chicago");
+        Matcher id = Pattern.compile("id:(\\S+)").matcher(events);
+        Assertions.assertTrue(id.find(), events);
+
+        MvcResult resumed = mockMvc.perform(get("/weather/stream").header("Last-Event-ID", id.group(1)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String replayed = awaitContent(resumed, "Chicago");
+        Assertions.assertTrue(replayed.contains("Chicago"), replayed);
+        Assertions.assertFalse(replayed.contains("Oakland"), replayed);
+    }
+
+    private static String awaitContent(MvcResult result, String expected) throws Exception {
+        long deadline = System.currentTimeMillis() + 5000;
+        String content = result.getResponse().getContentAsString();
+        while (!content.contains(expected) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+            content = result.getResponse().getContentAsString();
+        }
+        return content;
+    }
+}
@@ -0,0 +1,167 @@
+package com.klm.weather;
+
+import com.klm.weather.model.Weather;
+import com.klm.weather.repository.WeatherRepository;
+import com.klm.weather.service.LocationDictionary;
+import com.klm.weather.service.TemperatureMetric;
+import com.klm.weather.service.TemperatureStatsBackfill;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.security.test.context.support.WithMockUser;
+
+import java.util.Date;
+import java.util.List;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "app.top.scan-batch-size=2")
+public class WeatherTopTest extends WeatherWebTestSupport {
+    @Autowired
+    private WeatherRepository weatherRepository;
+    @Autowired
+    private LocationDictionary locationDictionary;
+    @Autowired
+    private TemperatureStatsBackfill temperatureStatsBackfill;
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    public void testMaxWithinDateRange() throws Exception {
+        createJulyAndAugust();
+
+        mockMvc.perform(get("/weather/top?metric=max&n=2&from=2019-07-01&to=2019-07-31"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[*].value", contains(40.0, 35.0)))
+                .andExpect(jsonPath("$[0].weather.city").value("Springfield"));
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    public void testMinRanksColdestFirstByDefault() throws Exception {
+        createJulyAndAugust();
+
+        mockMvc.perform(get("/weather/top?metric=min&n=1&state=illinois&fields=city,date"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].value").value(10.0))
+                .andExpect(jsonPath("$[0].weather.date").value("2019-07-02"))
+                .andExpect(jsonPath("$[0].weather.temperatures").doesNotExist());
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    public void testMeanWithExplicitOrderAndCity() throws Exception {
+        createJulyAndAugust();
+
+        mockMvc.perform(get("/weather/top?metric=mean&n=1&order=asc&city=oakland"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].value").value(12.0));
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    public void testHourRangeIsRankedByScanning() throws Exception {
+        createJulyAndAugust();
+
+        mockMvc.perform(get("/weather/top?metric=max&n=3&hours=0-1&to=2019-07-31"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].value", contains(35.0, 30.0, 22.0)))
+                .andExpect(jsonPath("$[0].weather.temperatures", contains(35.0, 10.0)));
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    public void testStatisticsAreStoredOnTheEntityButNotSerialized() throws Exception {
+        int id = createWeather("2019-07-01", "Chicago", "Illinois", List.of(20.0, 30.0, 25.0));
+
+        Weather stored = weatherRepository.findById(id).orElseThrow();
+        assertEquals(30.0, stored.getMaxTemperature());
+        assertEquals(20.0, stored.getMinTemperature());
+        assertEquals(25.0, stored.getMeanTemperature());
+        assertEquals(3, stored.getTemperatureCount());
+        mockMvc.perform(get("/weather/" + id))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.maxTemperature").doesNotExist())
+                .andExpect(jsonPath("$.temperatureCount").doesNotExist());
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    public void testRecordsWithoutStatisticsAreRankedAfterBackfill() throws Exception {
+        createJulyAndAugust();
+        // Written without statistics, as a process predating the columns would
+        Weather legacy = new Weather(simpleDateFormat.parse("2019-07-03"), 41.8f, -87.6f, "Chicago", "Illinois", List.of(50.0, 1.0));
+        legacy.setLocationId(locationDictionary.resolve("Chicago", "Illinois"));
+        weatherRepository.save(legacy);
+        temperatureStatsBackfill.backfill();
+
+        mockMvc.perform(get("/weather/top?metric=max&n=2&from=2019-07-01&to=2019-07-31"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].value", contains(50.0, 40.0)))
+                .andExpect(jsonPath("$[0].weather.date").value("2019-07-03"));
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    public void testUndatedRecordsMatchDateFiltersLikeTheListEndpoint() throws Exception {
+        createJulyAndAugust();
+        Weather undated = new Weather(null, 41.8f, -87.6f, "Chicago", "Illinois", List.of(60.0));
+        undated.setLocationId(locationDictionary.resolve("Chicago", "Illinois"));
+        TemperatureMetric.fillColumns(undated);
+        weatherRepository.save(undated);
+
+        mockMvc.perform(get("/weather/top?metric=max&n=1&from=2019-07-01&to=2019-07-31"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].value").value(60.0));
+        mockMvc.perform(get("/weather/top?metric=max&n=1&date=2019-08-01"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].value").value(60.0));
+    }
+
+    @Test
+    public void testBackfillFillsStatisticsOnceAndSkipsRecordsWithoutTemperatures() {
+        Weather legacy = new Weather(new Date(), 41.8f, -87.6f, "Chicago", "Illinois", List.of(20.0, 30.0));
+        legacy.setLocationId(locationDictionary.resolve("Chicago", "Illinois"));
+        Weather empty = new Weather(new Date(), 41.8f, -87.6f, "Chicago", "Illinois", List.of());
+        empty.setLocationId(legacy.getLocationId());
+        int legacyId = weatherRepository.save(legacy).getId();
+        int emptyId = weatherRepository.save(empty).getId();
+
+        temperatureStatsBackfill.backfill();
+
+        Weather filled = weatherRepository.findById(legacyId).orElseThrow();
+        assertEquals(30.0, filled.getMaxTemperature());
+        assertEquals(25.0, filled.getMeanTemperature());
+        Weather marked = weatherRepository.findById(emptyId).orElseThrow();
+        assertNull(marked.getMaxTemperature());
+        assertEquals(0, marked.getTemperatureCount());
+        assertTrue(weatherRepository.findMissingTemperatureStats(0, PageRequest.ofSize(10)).isEmpty());
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    public void testInvalidParametersAreRejected() throws Exception {
+        mockMvc.perform(get("/weather/top?metric=median"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/weather/top?n=0"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/weather/top?order=up"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private void createJulyAndAugust() throws Exception {
+        createWeather("2019-07-01", "Chicago", "Illinois", List.of(20.0, 30.0, 25.0));
+        createWeather("2019-07-02", "Chicago", "Illinois", List.of(35.0, 10.0, 15.0));
+        createWeather("2019-07-01", "Springfield", "Illinois", List.of(18.0, 22.0, 40.0));
+        createWeather("2019-07-01", "Oakland", "California", List.of(5.0, 12.0, 19.0));
+        createWeather("2019-08-01", "Oakland", "California", List.of(45.0, 45.0, 45.0));
+    }
+}
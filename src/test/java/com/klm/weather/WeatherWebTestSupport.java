@@ -0,0 +1,50 @@
+package com.klm.weather;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.klm.weather.model.Weather;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.text.SimpleDateFormat;
+import java.util.List;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Common setup of the MockMvc tests: a fresh context per test method and a helper that creates
+ * weather records through the API. Subclasses may redeclare {@code @SpringBootTest} to set properties.
+ */
+@SpringBootTest
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+@AutoConfigureMockMvc
+public abstract class WeatherWebTestSupport {
+    protected static final SimpleDateFormat simpleDateFormat = new SimpleDateFormat("yyyy-MM-dd");
+    protected static final ObjectMapper om = new ObjectMapper().setDateFormat(simpleDateFormat);
+    protected static final List<Double> TEMPERATURES = List.of(24.0, 21.5, 24.0, 19.5, 25.5, 25.5);
+
+    @Autowired
+    protected MockMvc mockMvc;
+
+    /**
+     * Creates a record through {@code POST /weather}; the caller needs the ADMIN role.
+     *
+     * @return the id of the created record
+     */
+    protected int createWeather(String date, String city, String state, List<Double> temperatures) throws Exception {
+        Weather weather = new Weather(simpleDateFormat.parse(date), 41.8818f, -87.6231f, city, state, temperatures);
+        String created = mockMvc.perform(post("/weather")
+                        .contentType("application/json")
+                        .content(om.writeValueAsString(weather)))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        return om.readTree(created).get("id").asInt();
+    }
+
+    protected int createWeather(String date, String city, String state) throws Exception {
+        return createWeather(date, city, state, TEMPERATURES);
+    }
+}
@@ -0,0 +1,53 @@
+package com.klm.weather.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BoundedHeapTest {
+
+    @Test
+    public void testKeepsOnlyTheBestUpToCapacity() {
+        BoundedHeap<Integer> heap = new BoundedHeap<>(3, Comparator.<Integer>reverseOrder());
+        List.of(5, 1, 9, 3, 7, 2).forEach(heap::offer);
+
+        assertEquals(List.of(9, 7, 5), heap.toSortedList());
+    }
+
+    @Test
+    public void testFewerElementsThanCapacity() {
+        BoundedHeap<Integer> heap = new BoundedHeap<>(5, Comparator.<Integer>naturalOrder());
+        List.of(4, 2).forEach(heap::offer);
+
+        assertEquals(List.of(2, 4), heap.toSortedList());
+        assertTrue(new BoundedHeap<Integer>(5, Comparator.naturalOrder()).toSortedList().isEmpty());
+    }
+
+    @Test
+    public void testMergeMatchesASingleHeap() {
+        BoundedHeap<Integer> left = new BoundedHeap<>(4, Comparator.<Integer>naturalOrder());
+        BoundedHeap<Integer> right = new BoundedHeap<>(4, Comparator.<Integer>naturalOrder());
+        List.of(10, 3, 8, 6, 12).forEach(left::offer);
+        List.of(1, 11, 7, 4).forEach(right::offer);
+
+        assertEquals(List.of(1, 3, 4, 6), left.merge(right).toSortedList());
+        assertEquals(List.of(0, 1, 2), IntStream.range(0, 1000).boxed().parallel()
+                .collect(BoundedHeap.collector(3, Comparator.<Integer>naturalOrder())).toSortedList());
+    }
+
+    @Test
+    public void testTiesKeepTheFirstElementsSeen() {
+        // Ranked by value only, so equal values are ties; the label tells them apart
+        BoundedHeap<String> heap = new BoundedHeap<>(2, Comparator.comparing(s -> s.charAt(0)));
+        List.of("5a", "5b", "5c", "1a").forEach(heap::offer);
+
+        List<String> kept = heap.toSortedList();
+        assertEquals("1a", kept.get(0));
+        assertTrue(kept.get(1).equals("5a") || kept.get(1).equals("5b"), "kept " + kept);
+    }
+}
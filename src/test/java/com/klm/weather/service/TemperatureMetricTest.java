@@ -0,0 +1,62 @@
+package com.klm.weather.service;
+
+import com.klm.weather.model.Weather;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class TemperatureMetricTest {
+
+    @Test
+    public void testComputeOverAllValues() {
+        List<Double> temperatures = List.of(20.0, 30.0, 25.0);
+
+        assertEquals(30.0, TemperatureMetric.MAX.compute(temperatures));
+        assertEquals(20.0, TemperatureMetric.MIN.compute(temperatures));
+        assertEquals(25.0, TemperatureMetric.MEAN.compute(temperatures));
+    }
+
+    @Test
+    public void testComputeSkipsNullValues() {
+        List<Double> temperatures = Arrays.asList(null, -5.0, null, 15.0);
+
+        assertEquals(15.0, TemperatureMetric.MAX.compute(temperatures));
+        assertEquals(-5.0, TemperatureMetric.MIN.compute(temperatures));
+        assertEquals(5.0, TemperatureMetric.MEAN.compute(temperatures));
+    }
+
+    @Test
+    public void testComputeWithoutValuesIsNull() {
+        for (TemperatureMetric metric : TemperatureMetric.values()) {
+            assertNull(metric.compute(null));
+            assertNull(metric.compute(List.of()));
+            assertNull(metric.compute(Arrays.asList(null, null)));
+        }
+    }
+
+    @Test
+    public void testFillColumnsCountsValues() {
+        Weather weather = new Weather(null, 0f, 0f, "Chicago", "Illinois", Arrays.asList(10.0, null, 20.0));
+        TemperatureMetric.fillColumns(weather);
+        assertEquals(20.0, weather.getMaxTemperature());
+        assertEquals(15.0, weather.getMeanTemperature());
+        assertEquals(2, weather.getTemperatureCount());
+
+        Weather empty = new Weather(null, 0f, 0f, "Chicago", "Illinois", List.of());
+        TemperatureMetric.fillColumns(empty);
+        assertNull(empty.getMaxTemperature());
+        assertEquals(0, empty.getTemperatureCount());
+    }
+
+    @Test
+    public void testOfIsCaseInsensitiveAndRejectsUnknownMetrics() {
+        assertEquals(TemperatureMetric.MEAN, TemperatureMetric.of("Mean"));
+        assertThrows(ResponseStatusException.class, () -> TemperatureMetric.of("median"));
+    }
+}
@@ -0,0 +1,41 @@
+package com.klm.weather.service;
+
+import com.klm.weather.model.WeatherDTO;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class WeatherRingBufferTest {
+
+    @Test
+    public void testCapacityIsRoundedUpToAPowerOfTwo() {
+        assertEquals(4, new WeatherRingBuffer(4).capacity());
+        assertEquals(8, new WeatherRingBuffer(5).capacity());
+    }
+
+    @Test
+    public void testWrapsAroundAndForgetsOverwrittenSequences() {
+        WeatherRingBuffer ring = new WeatherRingBuffer(4);
+        for (int i = 0; i < 10; i++) {
+            assertEquals(i, ring.publish(weather(i)));
+        }
+
+        assertEquals(10, ring.next());
+        assertEquals(6, ring.oldest());
+        for (long sequence = 0; sequence < 6; sequence++) {
+            assertNull(ring.get(sequence), "sequence " + sequence);
+        }
+        for (long sequence = 6; sequence < 10; sequence++) {
+            assertEquals(sequence, ring.get(sequence).sequence);
+            assertEquals((int) sequence, ring.get(sequence).weather.getId());
+        }
+        assertNull(ring.get(10));
+    }
+
+    private static WeatherDTO weather(int id) {
+        return new WeatherDTO(id, null, 1f, 1f, "City" + id, "State", List.of(1.0));
+    }
+}
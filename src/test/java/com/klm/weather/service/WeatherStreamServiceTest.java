@@ -0,0 +1,216 @@
+package com.klm.weather.service;
+
+import com.klm.weather.model.WeatherDTO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class WeatherStreamServiceTest {
+
+    private static final WeatherStreamFilter ALL = new WeatherStreamFilter(null, null, null);
+
+    private WeatherStreamService service;
+
+    @AfterEach
+    public void shutdown() {
+        if (service != null) {
+            service.shutdown();
+        }
+    }
+
+    @Test
+    public void testDropPolicyReportsTheGapAndSkipsToTheOldestRecord() throws Exception {
+        service = new WeatherStreamService(4, SlowSubscriberPolicy.DROP, 60000, 1, false);
+        RecordingEmitter slow = RecordingEmitter.blockingFirstSend();
+        service.subscribe(slow, ALL, null);
+
+        overrunWhileBlocked(slow);
+
+        await(() -> slow.events().size() == 6);
+        assertEquals(List.of("weather:0", "dropped:4", "weather:5", "weather:6", "weather:7", "weather:8"), slow.events());
+        assertFalse(slow.completed);
+        assertEquals(1, service.subscriberCount());
+    }
+
+    @Test
+    public void testDisconnectPolicyClosesTheStream() throws Exception {
+        service = new WeatherStreamService(4, SlowSubscriberPolicy.DISCONNECT, 60000, 1, false);
+        RecordingEmitter slow = RecordingEmitter.blockingFirstSend();
+        service.subscribe(slow, ALL, null);
+
+        overrunWhileBlocked(slow);
+
+        await(() -> slow.completed);
+        assertEquals(List.of("weather:0", "lagged:4"), slow.events());
+        assertEquals(0, service.subscriberCount());
+    }
+
+    @Test
+    public void testFailedSendCompletesTheEmitterWithTheError() throws Exception {
+        service = new WeatherStreamService(4, SlowSubscriberPolicy.DROP, 60000, 1, false);
+        RecordingEmitter broken = new RecordingEmitter(null, true);
+        service.subscribe(broken, ALL, null);
+
+        publish(0);
+
+        await(() -> broken.error != null);
+        assertTrue(broken.error instanceof IOException);
+        assertEquals(0, service.subscriberCount());
+    }
+
+    @Test
+    public void testResumesAfterLastEventId() throws Exception {
+        service = new WeatherStreamService(4, SlowSubscriberPolicy.DROP, 60000, 1, false);
+        RecordingEmitter first = new RecordingEmitter(null, false);
+        service.subscribe(first, ALL, null);
+        publish(0, 1, 2);
+        await(() -> first.events().size() == 3);
+
+        RecordingEmitter resumed = new RecordingEmitter(null, false);
+        service.subscribe(resumed, ALL, first.ids.get(0));
+
+        await(() -> resumed.events().size() == 2);
+        assertEquals(List.of("weather:1", "weather:2"), resumed.events());
+        assertEquals(first.ids.subList(1, 3), resumed.ids);
+    }
+
+    @Test
+    public void testLastEventIdOlderThanTheRingReportsTheGap() throws Exception {
+        service = new WeatherStreamService(4, SlowSubscriberPolicy.DISCONNECT, 60000, 1, false);
+        RecordingEmitter first = new RecordingEmitter(null, false);
+        service.subscribe(first, ALL, null);
+        publish(0);
+        await(() -> first.events().size() == 1);
+        publish(1, 2, 3, 4, 5, 6, 7, 8);
+        await(() -> service.published() == 9);
+
+        // Even with DISCONNECT a reconnecting client gets the records still held instead of being closed again
+        RecordingEmitter resumed = new RecordingEmitter(null, false);
+        service.subscribe(resumed, ALL, first.ids.get(0));
+
+        await(() -> resumed.events().size() == 5);
+        assertEquals(List.of("dropped:4", "weather:5", "weather:6", "weather:7", "weather:8"), resumed.events());
+        assertFalse(resumed.completed);
+    }
+
+    @Test
+    public void testLastEventIdFromAnotherRunOnlyGetsNewRecords() throws Exception {
+        service = new WeatherStreamService(4, SlowSubscriberPolicy.DROP, 60000, 1, false);
+        publish(0, 1);
+        await(() -> service.published() == 2);
+
+        // Sequences restart at 0, so an id from before a restart must not resume into unrelated records
+        RecordingEmitter resumed = new RecordingEmitter(null, false);
+        service.subscribe(resumed, ALL, "previousrun-0");
+        publish(2);
+
+        await(() -> resumed.events().size() == 1);
+        assertEquals(List.of("weather:2"), resumed.events());
+    }
+
+    // Blocks the only delivery thread in the first send, then publishes past the end of the ring
+    private void overrunWhileBlocked(RecordingEmitter slow) throws Exception {
+        publish(0);
+        assertTrue(slow.blocked.await(5, TimeUnit.SECONDS));
+        publish(1, 2, 3, 4, 5, 6, 7, 8);
+        await(() -> service.published() == 9);
+        slow.release.countDown();
+    }
+
+    private void publish(int... ids) {
+        for (int id : ids) {
+            service.onWeatherCreated(new WeatherCreatedEvent(new WeatherDTO(id, null, 1f, 1f, "City", "State", List.of(1.0)), 1));
+        }
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(condition.getAsBoolean(), "condition not met in time");
+    }
+
+    // Records sent events as "name:data", with weather records reduced to their id
+    private static final class RecordingEmitter extends SseEmitter {
+        final List<String> names = new CopyOnWriteArrayList<>();
+        final List<String> ids = new CopyOnWriteArrayList<>();
+        final CountDownLatch blocked = new CountDownLatch(1);
+        final CountDownLatch release;
+        final boolean failSends;
+        volatile boolean completed;
+        volatile Throwable error;
+
+        RecordingEmitter(CountDownLatch release, boolean failSends) {
+            this.release = release;
+            this.failSends = failSends;
+        }
+
+        static RecordingEmitter blockingFirstSend() {
+            return new RecordingEmitter(new CountDownLatch(1), false);
+        }
+
+        List<String> events() {
+            return new ArrayList<>(names);
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            if (failSends) {
+                throw new IOException("Broken pipe");
+            }
+            if (release != null && blocked.getCount() > 0) {
+                blocked.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            String text = builder.build().stream()
+                    .map(part -> part.getData() instanceof WeatherDTO weather ? weather.getId().toString() : part.getData().toString())
+                    .collect(Collectors.joining());
+            String id = null;
+            String name = null;
+            String data = null;
+            for (String line : text.split("\n")) {
+                if (line.startsWith("id:")) {
+                    id = line.substring(3);
+                } else if (line.startsWith("event:")) {
+                    name = line.substring(6);
+                } else if (line.startsWith("data:")) {
+                    data = line.substring(5);
+                }
+            }
+            if (id != null) {
+                ids.add(id);
+            }
+            names.add(name + ":" + data);
+        }
+
+        @Override
+        public void complete() {
+            completed = true;
+            super.complete();
+        }
+
+        @Override
+        public void completeWithError(Throwable ex) {
+            error = ex;
+            super.completeWithError(ex);
+        }
+    }
+}